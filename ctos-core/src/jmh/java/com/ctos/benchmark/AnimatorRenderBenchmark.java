@@ -0,0 +1,94 @@
+package com.ctos.benchmark;
+
+import com.ctos.trafficlight.cycle.CyclePhase;
+import com.ctos.trafficlight.model.FrozenIntersection;
+import com.ctos.trafficlight.model.Intersection;
+import com.ctos.trafficlight.engine.BlockWriteQueue;
+import com.ctos.trafficlight.engine.PhaseDeltaTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-phase render work of the animator: delta lookup, write queue and a drained batch
+ * Mirrors RenderPartition.render with an unlimited write budget, rendering into a stand-in sink
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimatorRenderBenchmark {
+    private static final CyclePhase[] PHASES = CyclePhase.values();
+
+    @Param({"2", "4"})
+    public int sides;
+
+    @Param({"1", "4", "16"})
+    public int lampsPerPhase;
+
+    private Intersection intersection;
+    private FrozenIntersection frozen;
+    private PhaseDeltaTable table;
+    private BlockWriteQueue writeQueue;
+    private RecordingBlockSink sink;
+    private List<BlockWriteQueue.BlockWrite> batch;
+    private int phaseIndex;
+
+    @Setup
+    public void setup() {
+        intersection = SyntheticIntersections.create(0, sides, lampsPerPhase);
+        frozen = intersection.freeze();
+        table = PhaseDeltaTable.build(frozen, false);
+        writeQueue = new BlockWriteQueue();
+        sink = new RecordingBlockSink();
+        batch = new ArrayList<>();
+    }
+
+    /**
+     * One phase transition rendered from the delta of the previous phase
+     */
+    @Benchmark
+    public long renderDelta() {
+        CyclePhase phase = PHASES[phaseIndex];
+        phaseIndex = (phaseIndex + 1) % PHASES.length;
+        return render(table.getDelta(phase));
+    }
+
+    /**
+     * One phase rendered from scratch, as on chunk load or when a player comes into view
+     */
+    @Benchmark
+    public long renderFrame() {
+        CyclePhase phase = PHASES[phaseIndex];
+        phaseIndex = (phaseIndex + 1) % PHASES.length;
+        return render(table.getFrame(phase));
+    }
+
+    /**
+     * Compiling an intersection on registration: freeze and build its delta table
+     */
+    @Benchmark
+    public PhaseDeltaTable compile() {
+        FrozenIntersection compiled = intersection.freeze();
+        return PhaseDeltaTable.build(compiled, false);
+    }
+
+    private long render(List<PhaseDeltaTable.Target> targets) {
+        for (PhaseDeltaTable.Target target : targets) {
+            writeQueue.enqueue(target.getPosition(), target.getState(), target.getDirection(),
+                    target.getFacingSource(), target.isLit(), target.getPriority());
+        }
+
+        batch.clear();
+        BlockWriteQueue.BlockWrite write;
+        while ((write = writeQueue.poll()) != null) {
+            batch.add(write);
+        }
+        sink.write(batch);
+        return sink.getWrites();
+    }
+}
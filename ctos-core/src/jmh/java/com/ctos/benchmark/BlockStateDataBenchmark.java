@@ -0,0 +1,74 @@
+package com.ctos.benchmark;
+
+import com.ctos.trafficlight.model.BlockStateData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * String handling behind BukkitBlockStates.getRenderBlockData: facing parsing, direction mapping and facing rotation
+ * Parsing into BlockData needs a server, so these cover everything getRenderBlockData does up to that call
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockStateDataBenchmark {
+    private static final String[] DIRECTIONS = {"North", "South", "East", "West", "North-East"};
+    private static final String BLOCK_DATA = "minecraft:player_wall_head[facing=north,powered=false]";
+    private static final String PROFILE = "00000000-0000-0001-0000-000000000001|ctOS|"
+            + "http://textures.minecraft.net/texture/0123456789abcdef||";
+
+    private BlockStateData state;
+
+    @Setup
+    public void setup() {
+        state = new BlockStateData("PLAYER_WALL_HEAD", BLOCK_DATA, PROFILE);
+    }
+
+    /**
+     * Creating a state: facing parse and profile interning
+     */
+    @Benchmark
+    public BlockStateData create() {
+        return new BlockStateData("PLAYER_WALL_HEAD", BLOCK_DATA, PROFILE);
+    }
+
+    /**
+     * Direction to head facing, done for every write with a side direction
+     */
+    @Benchmark
+    public void facingForDirection(Blackhole blackhole) {
+        for (String direction : DIRECTIONS) {
+            blackhole.consume(BlockStateData.facingForDirection(direction));
+        }
+    }
+
+    /**
+     * Facing copied from another state, done for neutral writes
+     */
+    @Benchmark
+    public String extractFacing() {
+        return state.extractFacing();
+    }
+
+    /**
+     * Rotated blockData string, built once per facing variant when compiling the render cache
+     */
+    @Benchmark
+    public String withFacing() {
+        return BlockStateData.withFacing(BLOCK_DATA, "east");
+    }
+
+    /**
+     * Upgrade of a URL-only profile read from an old save
+     */
+    @Benchmark
+    public String migrateProfileData() {
+        return BlockStateData.migrateProfileData("00000000-0000-0001-0000-000000000001|ctOS|"
+                + "http://textures.minecraft.net/texture/0123456789abcdef");
+    }
+}
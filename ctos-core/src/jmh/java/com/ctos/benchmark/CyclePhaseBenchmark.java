@@ -0,0 +1,55 @@
+package com.ctos.benchmark;
+
+import com.ctos.trafficlight.cycle.CyclePhase;
+import com.ctos.trafficlight.model.LightPhase;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phase lookups done for every side while building frames: per-side light phase, pedestrian state,
+ * and walking the cycle
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CyclePhaseBenchmark {
+    private static final CyclePhase[] PHASES = CyclePhase.values();
+
+    @Param({"3", "4", "8"})
+    public int sides;
+
+    @Benchmark
+    public void phaseForSide(Blackhole blackhole) {
+        for (CyclePhase phase : PHASES) {
+            for (int side = 0; side < sides; side++) {
+                LightPhase light = phase.getPhaseForSide(side, sides);
+                blackhole.consume(light);
+                blackhole.consume(phase.isPedestrianGreen(side, sides));
+            }
+        }
+    }
+
+    @Benchmark
+    public void groupPhases(Blackhole blackhole) {
+        for (CyclePhase phase : PHASES) {
+            blackhole.consume(phase.getNsPhase());
+            blackhole.consume(phase.getEwPhase());
+            blackhole.consume(phase.isNsPedestrianGreen());
+            blackhole.consume(phase.isEwPedestrianGreen());
+        }
+    }
+
+    @Benchmark
+    public CyclePhase walkCycle() {
+        CyclePhase phase = CyclePhase.NS_GREEN;
+        for (int i = 0; i < PHASES.length; i++) {
+            phase = phase.getNext().getPrevious().getNext();
+        }
+        return phase;
+    }
+}
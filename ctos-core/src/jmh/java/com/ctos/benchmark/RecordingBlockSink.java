@@ -0,0 +1,40 @@
+package com.ctos.benchmark;
+
+import com.ctos.trafficlight.engine.BlockSink;
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.engine.BlockWriteQueue;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stand-in block sink: counts the writes it receives instead of touching a world
+ */
+public class RecordingBlockSink implements BlockSink {
+    private long writes;
+    private long batches;
+
+    @Override
+    public void write(List<BlockWriteQueue.BlockWrite> batch) {
+        writes += batch.size();
+        batches++;
+    }
+
+    @Override
+    public void forget(Collection<BlockPosition> blocks) {
+    }
+
+    @Override
+    public void clear() {
+        writes = 0;
+        batches = 0;
+    }
+
+    public long getWrites() {
+        return writes;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+}
@@ -0,0 +1,89 @@
+package com.ctos.benchmark;
+
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.model.BlockStateData;
+import com.ctos.trafficlight.model.Intersection;
+import com.ctos.trafficlight.model.LightPhase;
+import com.ctos.trafficlight.model.TrafficLightSide;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Generates intersections of any size without a server
+ * Lamps are textured wall heads laid out on a grid, one intersection per 64 blocks along x
+ */
+public class SyntheticIntersections {
+    public static final String WORLD = "benchmark";
+
+    private static final String[] DIRECTIONS = {"North", "South", "East", "West"};
+    private static final String[] FACINGS = {"north", "south", "east", "west"};
+
+    /**
+     * Creates an intersection
+     * @param index Position of the intersection in the generated row
+     * @param sides Number of sides, directions cycle through North, South, East, West
+     * @param lampsPerPhase Lamps of each light phase per side, pedestrian lights get as many
+     */
+    public static Intersection create(int index, int sides, int lampsPerPhase) {
+        Intersection intersection = new Intersection(new UUID(0, index), "Synthetic " + index);
+        intersection.setNeutralState(state("minecraft:player_wall_head[facing=north,powered=false]", "neutral"));
+
+        int baseX = index * 64;
+        for (int s = 0; s < sides; s++) {
+            TrafficLightSide side = new TrafficLightSide(DIRECTIONS[s % DIRECTIONS.length]);
+            String facing = FACINGS[s % FACINGS.length];
+            int z = s * 4;
+            int y = 64;
+
+            for (LightPhase phase : LightPhase.values()) {
+                List<BlockPosition> blocks = new ArrayList<>();
+                List<BlockStateData> states = new ArrayList<>();
+                for (int i = 0; i < lampsPerPhase; i++) {
+                    blocks.add(new BlockPosition(WORLD, baseX + i, y, z));
+                    states.add(lampState(facing, phase.name().toLowerCase()));
+                }
+                side.setLightBlocks(phase, blocks, states);
+                y++;
+            }
+
+            List<BlockPosition> greenBlocks = new ArrayList<>();
+            List<BlockStateData> greenStates = new ArrayList<>();
+            List<BlockPosition> redBlocks = new ArrayList<>();
+            List<BlockStateData> redStates = new ArrayList<>();
+            for (int i = 0; i < lampsPerPhase; i++) {
+                greenBlocks.add(new BlockPosition(WORLD, baseX + i, y, z + 1));
+                greenStates.add(lampState(facing, "walk"));
+                redBlocks.add(new BlockPosition(WORLD, baseX + i, y + 1, z + 1));
+                redStates.add(lampState(facing, "stop"));
+            }
+            side.setPedestrianGreenBlocks(greenBlocks, greenStates);
+            side.setPedestrianRedBlocks(redBlocks, redStates);
+
+            intersection.addSide(side);
+        }
+        return intersection;
+    }
+
+    /**
+     * Creates a row of identical intersections
+     */
+    public static List<Intersection> createRow(int count, int sides, int lampsPerPhase) {
+        List<Intersection> intersections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            intersections.add(create(i, sides, lampsPerPhase));
+        }
+        return intersections;
+    }
+
+    private static BlockStateData lampState(String facing, String texture) {
+        return state("minecraft:player_wall_head[facing=" + facing + ",powered=false]", texture);
+    }
+
+    private static BlockStateData state(String blockDataString, String texture) {
+        // Same serialized profile format as captured heads: uuid|name|textureUrl|textureValue|signature
+        String profile = new UUID(1, texture.hashCode()) + "|ctOS|http://textures.minecraft.net/texture/" + texture + "||";
+        return new BlockStateData("PLAYER_WALL_HEAD", blockDataString, profile);
+    }
+}
@@ -0,0 +1,73 @@
+package com.ctos.benchmark;
+
+import com.ctos.trafficlight.cycle.PhaseScheduler;
+import com.ctos.trafficlight.cycle.TickCycleClock;
+import com.ctos.trafficlight.cycle.TrafficCycle;
+import com.ctos.trafficlight.model.Intersection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of advancing every cycle by one server tick
+ * tickAll polls each cycle like the animator used to, tickDue only touches the cycles whose
+ * phase change is due, like the animator's PhaseScheduler loop
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrafficCycleBenchmark {
+    @Param({"10", "100", "1000"})
+    public int intersections;
+
+    private TickCycleClock clock;
+    private List<TrafficCycle> cycles;
+    private PhaseScheduler scheduler;
+
+    @Setup
+    public void setup() {
+        clock = new TickCycleClock();
+        cycles = new ArrayList<>(intersections);
+        scheduler = new PhaseScheduler();
+
+        List<Intersection> row = SyntheticIntersections.createRow(intersections, 4, 1);
+        for (int i = 0; i < row.size(); i++) {
+            TrafficCycle cycle = new TrafficCycle(row.get(i), clock);
+            cycles.add(cycle);
+            // Stagger deadlines so phase changes spread over ticks as on a live server
+            scheduler.schedule(cycle, clock.currentTick() + 1 + i % 200);
+        }
+    }
+
+    @Benchmark
+    public int tickAll() {
+        clock.advance();
+        int changed = 0;
+        for (TrafficCycle cycle : cycles) {
+            if (cycle.tick()) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    @Benchmark
+    public int tickDue() {
+        clock.advance();
+        long now = clock.currentTick();
+        int changed = 0;
+        TrafficCycle cycle;
+        while ((cycle = scheduler.pollDue(now)) != null) {
+            if (cycle.tick()) {
+                changed++;
+            }
+            scheduler.schedule(cycle, Math.max(now + 1, cycle.getPhaseEndTick()));
+        }
+        return changed;
+    }
+}
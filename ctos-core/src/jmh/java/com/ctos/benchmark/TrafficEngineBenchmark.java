@@ -0,0 +1,46 @@
+package com.ctos.benchmark;
+
+import com.ctos.trafficlight.engine.MemoryBlockSink;
+import com.ctos.trafficlight.engine.TrafficEngine;
+import com.ctos.trafficlight.model.Intersection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole engine tick headlessly: phase scheduling, render decisions, write queues and a recording sink
+ * What the animator does each server tick, minus the world, with an unlimited write budget
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrafficEngineBenchmark {
+    @Param({"10", "100", "1000"})
+    public int intersections;
+
+    private TrafficEngine engine;
+    private MemoryBlockSink sink;
+
+    @Setup
+    public void setup() {
+        sink = new MemoryBlockSink();
+        engine = new TrafficEngine(sink, 0);
+        for (Intersection intersection : SyntheticIntersections.createRow(intersections, 4, 4)) {
+            engine.register(intersection);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.clear();
+    }
+
+    @Benchmark
+    public long tick() {
+        engine.tick();
+        return sink.getWriteCount();
+    }
+}
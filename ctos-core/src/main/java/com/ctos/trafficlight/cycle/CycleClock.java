@@ -0,0 +1,13 @@
+package com.ctos.trafficlight.cycle;
+
+/**
+ * Time source used by traffic cycles to measure phase durations
+ * All values are expressed in server ticks (20 ticks = 1 second) so they match TimingConfiguration
+ */
+public interface CycleClock {
+
+    /**
+     * Gets the current time in ticks
+     */
+    long currentTick();
+}
@@ -88,6 +88,14 @@ public enum CyclePhase {
         return phases[nextIndex];
     }
 
+    /**
+     * Gets the phase before this one in the cycle
+     */
+    public CyclePhase getPrevious() {
+        CyclePhase[] phases = CyclePhase.values();
+        return phases[(this.ordinal() + phases.length - 1) % phases.length];
+    }
+
     public LightPhase getNsPhase() {
         return nsPhase;
     }
@@ -0,0 +1,113 @@
+package com.ctos.trafficlight.cycle;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Min-heap of traffic cycles keyed on the cycle clock tick of their next phase change
+ * Each tick only the cycles that are due are touched, instead of polling every cycle
+ * Thread-safe: cycles may be (re)scheduled from region threads while the global tick polls
+ */
+public class PhaseScheduler {
+    private final PriorityQueue<Entry> queue;
+    private final Map<TrafficCycle, Entry> entries;
+    private long sequence;
+
+    public PhaseScheduler() {
+        this.queue = new PriorityQueue<>();
+        this.entries = new HashMap<>();
+    }
+
+    /**
+     * Schedules a cycle to be checked at the given tick
+     * Any previous schedule for the same cycle is replaced
+     */
+    public synchronized void schedule(TrafficCycle cycle, long deadlineTick) {
+        cancel(cycle);
+
+        Entry entry = new Entry(cycle, deadlineTick, sequence++);
+        entries.put(cycle, entry);
+        queue.add(entry);
+    }
+
+    /**
+     * Cancels the pending schedule of a cycle (lazily removed from the heap)
+     */
+    public synchronized void cancel(TrafficCycle cycle) {
+        Entry entry = entries.remove(cycle);
+        if (entry != null) {
+            entry.cancelled = true;
+        }
+    }
+
+    /**
+     * Removes and returns the next cycle due at or before the given tick
+     * @return The due cycle, or null if nothing is due yet
+     */
+    public synchronized TrafficCycle pollDue(long currentTick) {
+        Entry head;
+        while ((head = queue.peek()) != null) {
+            if (head.cancelled) {
+                queue.poll();
+                continue;
+            }
+            if (head.deadlineTick > currentTick) {
+                return null;
+            }
+
+            queue.poll();
+            entries.remove(head.cycle);
+            return head.cycle;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the tick of the earliest pending phase change, or Long.MAX_VALUE if nothing is scheduled
+     */
+    public synchronized long getNextDeadline() {
+        Entry head;
+        while ((head = queue.peek()) != null && head.cancelled) {
+            queue.poll();
+        }
+        return head != null ? head.deadlineTick : Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the number of scheduled cycles
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all scheduled cycles
+     */
+    public synchronized void clear() {
+        queue.clear();
+        entries.clear();
+    }
+
+    /**
+     * Heap entry, ordered by deadline then insertion order so equal deadlines fire FIFO
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final TrafficCycle cycle;
+        private final long deadlineTick;
+        private final long sequence;
+        private boolean cancelled;
+
+        private Entry(TrafficCycle cycle, long deadlineTick, long sequence) {
+            this.cycle = cycle;
+            this.deadlineTick = deadlineTick;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byDeadline = Long.compare(deadlineTick, other.deadlineTick);
+            return byDeadline != 0 ? byDeadline : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ctos.trafficlight.cycle;
+
+/**
+ * Cycle clock driven by explicit ticks
+ * The animator advances it once per server tick, so phases stretch with the server when it lags
+ * instead of being cut short. Tests can advance it by any amount to fast-forward cycles.
+ * Only one thread may advance it, any thread may read it.
+ */
+public class TickCycleClock implements CycleClock {
+    private volatile long tick;
+
+    public TickCycleClock() {
+        this(0L);
+    }
+
+    public TickCycleClock(long startTick) {
+        this.tick = startTick;
+    }
+
+    /**
+     * Advances the clock by one tick
+     */
+    public void advance() {
+        tick++;
+    }
+
+    /**
+     * Advances the clock by the given number of ticks
+     */
+    public void advance(long ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("Cannot move the clock backwards");
+        }
+        tick += ticks;
+    }
+
+    @Override
+    public long currentTick() {
+        return tick;
+    }
+}
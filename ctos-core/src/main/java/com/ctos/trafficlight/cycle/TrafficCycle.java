@@ -0,0 +1,151 @@
+package com.ctos.trafficlight.cycle;
+
+import com.ctos.trafficlight.model.Intersection;
+import com.ctos.trafficlight.model.TimingConfiguration;
+
+/**
+ * Manages the traffic light cycle for an intersection
+ * Phase durations are measured in ticks against a pluggable CycleClock
+ * Advanced on the global tick thread, the current phase may be read from region threads
+ */
+public class TrafficCycle {
+    private final Intersection intersection;
+    private final CycleClock clock;
+    private volatile CyclePhase currentPhase;
+    private volatile long phaseStartTick;
+
+    public TrafficCycle(Intersection intersection, CycleClock clock) {
+        this.intersection = intersection;
+        this.clock = clock;
+        this.currentPhase = CyclePhase.NS_GREEN;
+        this.phaseStartTick = clock.currentTick();
+    }
+
+    /**
+     * Advances to the next phase if enough time has elapsed
+     * A late check catches up on every phase that ended since, so the cycle stays on its clock's grid
+     * @return true if the phase was advanced
+     */
+    public boolean tick() {
+        if (!shouldAdvance()) {
+            return false;
+        }
+
+        // Skip whole cycles at once when the clock jumped far ahead
+        long cycleLength = getCycleLength();
+        long elapsed = getTicksInCurrentPhase();
+        if (cycleLength > 0 && elapsed >= cycleLength) {
+            phaseStartTick += (elapsed / cycleLength) * cycleLength;
+        }
+
+        // At most one cycle of phases, zero-length phases would otherwise never stop advancing
+        int phases = CyclePhase.values().length;
+        do {
+            advance();
+        } while (--phases > 0 && shouldAdvance());
+        return true;
+    }
+
+    /**
+     * Checks if enough time has passed to advance to the next phase
+     */
+    private boolean shouldAdvance() {
+        return getTicksInCurrentPhase() >= getRequiredDuration(currentPhase);
+    }
+
+    /**
+     * Advances to the next phase
+     * The next phase starts when the current one ended, not when the change was noticed
+     */
+    private void advance() {
+        long required = getRequiredDuration(currentPhase);
+        currentPhase = currentPhase.getNext();
+        phaseStartTick += required;
+    }
+
+    /**
+     * Gets the duration of a full cycle through every phase in ticks
+     */
+    private long getCycleLength() {
+        long length = 0;
+        for (CyclePhase phase : CyclePhase.values()) {
+            length += getRequiredDuration(phase);
+        }
+        return length;
+    }
+
+    /**
+     * Gets the required duration of a phase in ticks
+     */
+    private long getRequiredDuration(CyclePhase phase) {
+        TimingConfiguration timing = intersection.getTiming();
+        int ticks;
+
+        switch (phase) {
+            case NS_GREEN:
+            case EW_GREEN:
+                ticks = timing.getGreenDurationTicks();
+                break;
+
+            case NS_ORANGE:
+            case EW_ORANGE:
+                ticks = timing.getOrangeDurationTicks();
+                break;
+
+            case NS_TO_EW_TRANSITION:
+            case EW_TO_NS_TRANSITION:
+                ticks = timing.getAllRedGapTicks();
+                break;
+
+            default:
+                ticks = 20; // 1 second default
+        }
+
+        return ticks;
+    }
+
+    /**
+     * Forces advancement to a specific phase
+     */
+    public void setPhase(CyclePhase phase) {
+        this.currentPhase = phase;
+        this.phaseStartTick = clock.currentTick();
+    }
+
+    /**
+     * Resets the cycle to the beginning
+     */
+    public void reset() {
+        this.currentPhase = CyclePhase.NS_GREEN;
+        this.phaseStartTick = clock.currentTick();
+    }
+
+    public CyclePhase getCurrentPhase() {
+        return currentPhase;
+    }
+
+    public Intersection getIntersection() {
+        return intersection;
+    }
+
+    public CycleClock getClock() {
+        return clock;
+    }
+
+    public long getTicksInCurrentPhase() {
+        return clock.currentTick() - phaseStartTick;
+    }
+
+    public long getTicksRemainingInPhase() {
+        long required = getRequiredDuration(currentPhase);
+        long elapsed = getTicksInCurrentPhase();
+        return Math.max(0, required - elapsed);
+    }
+
+    /**
+     * Gets the tick of this cycle's clock at which the current phase ends
+     */
+    public long getPhaseEndTick() {
+        return phaseStartTick + getRequiredDuration(currentPhase);
+    }
+}
@@ -0,0 +1,14 @@
+package com.ctos.trafficlight.cycle;
+
+/**
+ * Cycle clock based on wall time (1 tick = 50ms)
+ * Phases keep their real-time length even when the server lags
+ */
+public class WallCycleClock implements CycleClock {
+    private static final long MILLIS_PER_TICK = 50L;
+
+    @Override
+    public long currentTick() {
+        return System.currentTimeMillis() / MILLIS_PER_TICK;
+    }
+}
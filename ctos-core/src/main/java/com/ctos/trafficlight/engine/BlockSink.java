@@ -0,0 +1,45 @@
+package com.ctos.trafficlight.engine;
+
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.model.BlockStateData;
+import com.ctos.trafficlight.model.FrozenIntersection;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Destination of the engine's block writes
+ * The plugin's lamp renderers write into the server, MemoryBlockSink records them for simulations
+ */
+public interface BlockSink {
+
+    /**
+     * Prepares a state ahead of its first write (e.g. parses it), called when an intersection is registered
+     */
+    default void prepare(BlockStateData state) {
+    }
+
+    /**
+     * Prepares the blocks of an intersection ahead of its first render, called when it is registered
+     * Called on the registering thread, after its states were prepared
+     * @param frame What every block shows in the cycle's current phase, built from the palette states
+     */
+    default void prepareBlocks(FrozenIntersection intersection, List<PhaseDeltaTable.Target> frame) {
+    }
+
+    /**
+     * Writes a batch of drained writes
+     * Called on the thread owning the partition that drained them
+     */
+    void write(List<BlockWriteQueue.BlockWrite> writes);
+
+    /**
+     * Forgets blocks that are no longer managed
+     */
+    void forget(Collection<BlockPosition> blocks);
+
+    /**
+     * Forgets everything written so far
+     */
+    void clear();
+}
@@ -0,0 +1,149 @@
+package com.ctos.trafficlight.engine;
+
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.model.BlockStateData;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Pending block writes that did not fit in the per-tick write budget
+ *
+ * Writes drain by priority class, then in the order they were queued. Every write that stops
+ * traffic (red lamps, lamps switching off) is applied before any orange, and every orange before
+ * any green, so a side can never show green while a conflicting side still shows green.
+ * Queuing a write for a position that already has a pending write replaces it.
+ */
+public class BlockWriteQueue {
+    public static final int PRIORITY_STOP = 0;    // Red lamps and lamps switching to neutral
+    public static final int PRIORITY_CAUTION = 1; // Orange lamps
+    public static final int PRIORITY_GO = 2;      // Green lamps and pedestrian green
+
+    private final PriorityQueue<BlockWrite> queue;
+    private final Map<BlockPosition, BlockWrite> pending;
+    private long sequence;
+
+    public BlockWriteQueue() {
+        this.queue = new PriorityQueue<>();
+        this.pending = new HashMap<>();
+    }
+
+    /**
+     * Queues a write, replacing any pending write for the same position
+     * @param direction Side direction used to rotate heads, or null to keep the captured rotation
+     * @param facingSource State to copy the facing from instead of using a direction, or null
+     * @param lit true if the lamp is switched on, false for the neutral state
+     * @return true if a pending write for the position was replaced
+     */
+    public boolean enqueue(BlockPosition position, BlockStateData state, String direction,
+                        BlockStateData facingSource, boolean lit, int priority) {
+        BlockWrite write = new BlockWrite(position, state, direction, facingSource, lit, priority, sequence++);
+
+        BlockWrite previous = pending.put(position, write);
+        if (previous != null) {
+            previous.superseded = true;
+        }
+        queue.add(write);
+        return previous != null;
+    }
+
+    /**
+     * Removes and returns the next write to apply
+     * @return The next write, or null if the queue is empty
+     */
+    public BlockWrite poll() {
+        BlockWrite write;
+        while ((write = queue.poll()) != null) {
+            if (!write.superseded) {
+                pending.remove(write.position);
+                return write;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drops the pending write for a position, if any
+     */
+    public void remove(BlockPosition position) {
+        BlockWrite write = pending.remove(position);
+        if (write != null) {
+            write.superseded = true;
+        }
+    }
+
+    /**
+     * Gets the number of pending writes
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Drops all pending writes
+     */
+    public void clear() {
+        queue.clear();
+        pending.clear();
+    }
+
+    /**
+     * A single block write waiting to be applied
+     */
+    public static final class BlockWrite implements Comparable<BlockWrite> {
+        private final BlockPosition position;
+        private final BlockStateData state;
+        private final String direction;
+        private final BlockStateData facingSource;
+        private final boolean lit;
+        private final int priority;
+        private final long sequence;
+        private boolean superseded;
+
+        private BlockWrite(BlockPosition position, BlockStateData state, String direction,
+                           BlockStateData facingSource, boolean lit, int priority, long sequence) {
+            this.position = position;
+            this.state = state;
+            this.direction = direction;
+            this.facingSource = facingSource;
+            this.lit = lit;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        public BlockPosition getPosition() {
+            return position;
+        }
+
+        public BlockStateData getState() {
+            return state;
+        }
+
+        public String getDirection() {
+            return direction;
+        }
+
+        public BlockStateData getFacingSource() {
+            return facingSource;
+        }
+
+        public boolean isLit() {
+            return lit;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        @Override
+        public int compareTo(BlockWrite other) {
+            int byPriority = Integer.compare(priority, other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.ctos.trafficlight.engine;
+
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.model.FrozenIntersection;
+
+import java.util.*;
+
+/**
+ * Index of managed block positions grouped by world and chunk
+ * Lets chunk events find the lamps they contain without scanning every intersection
+ * Thread-safe: chunk events arrive on region threads while edits run on the main or global thread
+ */
+public class ChunkBlockIndex {
+    // world name -> chunk key -> intersection id -> positions in that chunk
+    private final Map<String, Map<Long, Map<UUID, List<BlockPosition>>>> index;
+    // intersection id -> positions it was indexed with (blocks may change while editing)
+    private final Map<UUID, List<BlockPosition>> indexedBlocks;
+    // intersection id -> world name -> chunk keys it has blocks in
+    private final Map<UUID, Map<String, Set<Long>>> indexedChunks;
+
+    public ChunkBlockIndex() {
+        this.index = new HashMap<>();
+        this.indexedBlocks = new HashMap<>();
+        this.indexedChunks = new HashMap<>();
+    }
+
+    /**
+     * Packs chunk coordinates into a single key
+     */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Indexes all blocks of a frozen intersection, replacing any previous entry for it
+     */
+    public synchronized void add(FrozenIntersection intersection) {
+        remove(intersection.getId());
+
+        List<BlockPosition> blocks = intersection.getPositions();
+        Map<String, Set<Long>> chunks = new HashMap<>();
+        for (BlockPosition pos : blocks) {
+            long key = chunkKey(pos.getX() >> 4, pos.getZ() >> 4);
+            index.computeIfAbsent(pos.getWorldName(), w -> new HashMap<>())
+                    .computeIfAbsent(key, k -> new HashMap<>())
+                    .computeIfAbsent(intersection.getId(), id -> new ArrayList<>())
+                    .add(pos);
+            chunks.computeIfAbsent(pos.getWorldName(), w -> new HashSet<>()).add(key);
+        }
+        // Stored immutable so getChunks() can hand it out without copying
+        Map<String, Set<Long>> frozenChunks = new HashMap<>();
+        chunks.forEach((world, keys) -> frozenChunks.put(world, Set.copyOf(keys)));
+        indexedBlocks.put(intersection.getId(), blocks);
+        indexedChunks.put(intersection.getId(), Map.copyOf(frozenChunks));
+    }
+
+    /**
+     * Removes all blocks indexed for an intersection
+     */
+    public synchronized void remove(UUID intersectionId) {
+        List<BlockPosition> blocks = indexedBlocks.remove(intersectionId);
+        indexedChunks.remove(intersectionId);
+        if (blocks == null) {
+            return;
+        }
+
+        for (BlockPosition pos : blocks) {
+            Map<Long, Map<UUID, List<BlockPosition>>> chunks = index.get(pos.getWorldName());
+            if (chunks == null) {
+                continue;
+            }
+
+            long key = chunkKey(pos.getX() >> 4, pos.getZ() >> 4);
+            Map<UUID, List<BlockPosition>> byIntersection = chunks.get(key);
+            if (byIntersection == null) {
+                continue;
+            }
+
+            byIntersection.remove(intersectionId);
+            if (byIntersection.isEmpty()) {
+                chunks.remove(key);
+                if (chunks.isEmpty()) {
+                    index.remove(pos.getWorldName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the managed blocks in a chunk, grouped by intersection id
+     * @return A copy, empty if the chunk has no managed blocks
+     */
+    public synchronized Map<UUID, List<BlockPosition>> getBlocksInChunk(String worldName, int chunkX, int chunkZ) {
+        Map<Long, Map<UUID, List<BlockPosition>>> chunks = index.get(worldName);
+        if (chunks == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<UUID, List<BlockPosition>> byIntersection = chunks.get(chunkKey(chunkX, chunkZ));
+        return byIntersection != null ? new HashMap<>(byIntersection) : Collections.emptyMap();
+    }
+
+    /**
+     * Gets the chunks an intersection has blocks in, as world name -> chunk keys
+     * @return An immutable map, empty if the intersection is not indexed
+     */
+    public synchronized Map<String, Set<Long>> getChunks(UUID intersectionId) {
+        Map<String, Set<Long>> chunks = indexedChunks.get(intersectionId);
+        return chunks != null ? chunks : Collections.emptyMap();
+    }
+
+    /**
+     * Checks if a chunk contains any managed block
+     */
+    public synchronized boolean hasBlocksInChunk(String worldName, int chunkX, int chunkZ) {
+        Map<Long, Map<UUID, List<BlockPosition>>> chunks = index.get(worldName);
+        return chunks != null && chunks.containsKey(chunkKey(chunkX, chunkZ));
+    }
+
+    /**
+     * Clears the index
+     */
+    public synchronized void clear() {
+        index.clear();
+        indexedBlocks.clear();
+        indexedChunks.clear();
+    }
+}
@@ -0,0 +1,76 @@
+package com.ctos.trafficlight.engine;
+
+import com.ctos.trafficlight.model.BlockPosition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory block sink: records the last write of every block instead of touching a world
+ * Lets simulations drive a TrafficEngine headlessly and inspect what the lamps would show
+ */
+public class MemoryBlockSink implements BlockSink {
+    private final Map<BlockPosition, BlockWriteQueue.BlockWrite> blocks;
+    private long writeCount;
+    private long batchCount;
+
+    public MemoryBlockSink() {
+        this.blocks = new HashMap<>();
+    }
+
+    @Override
+    public synchronized void write(List<BlockWriteQueue.BlockWrite> writes) {
+        for (BlockWriteQueue.BlockWrite write : writes) {
+            blocks.put(write.getPosition(), write);
+        }
+        writeCount += writes.size();
+        batchCount++;
+    }
+
+    @Override
+    public synchronized void forget(Collection<BlockPosition> positions) {
+        for (BlockPosition position : positions) {
+            blocks.remove(position);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        blocks.clear();
+        writeCount = 0;
+        batchCount = 0;
+    }
+
+    /**
+     * Gets the last write of a block
+     * @return The write, or null if the block was never written or was forgotten
+     */
+    public synchronized BlockWriteQueue.BlockWrite getWrite(BlockPosition position) {
+        return blocks.get(position);
+    }
+
+    /**
+     * Checks if the last write of a block lit its lamp
+     */
+    public synchronized boolean isLit(BlockPosition position) {
+        BlockWriteQueue.BlockWrite write = blocks.get(position);
+        return write != null && write.isLit();
+    }
+
+    /**
+     * Gets a snapshot of the last write of every written block
+     */
+    public synchronized Map<BlockPosition, BlockWriteQueue.BlockWrite> getBlocks() {
+        return new HashMap<>(blocks);
+    }
+
+    public synchronized long getWriteCount() {
+        return writeCount;
+    }
+
+    public synchronized long getBatchCount() {
+        return batchCount;
+    }
+}
@@ -0,0 +1,237 @@
+package com.ctos.trafficlight.engine;
+
+import com.ctos.trafficlight.cycle.CyclePhase;
+import com.ctos.trafficlight.model.*;
+import com.ctos.util.DebugTrace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * Precomputed block writes of an intersection for every cycle phase
+ *
+ * The phase sequence is fixed, so for each phase the table holds the full frame (every block's
+ * target) and the delta from the previous phase (only the blocks whose target changes).
+ * A phase change then queues just the delta. Built from the frozen form when the intersection is
+ * registered, which also happens after every edit.
+ */
+public class PhaseDeltaTable {
+    private static final Logger LOGGER = Logger.getLogger("ctOS");
+
+    private final Map<CyclePhase, List<Target>> frames;
+    private final Map<CyclePhase, List<Target>> deltas;
+
+    private PhaseDeltaTable(Map<CyclePhase, List<Target>> frames, Map<CyclePhase, List<Target>> deltas) {
+        this.frames = frames;
+        this.deltas = deltas;
+    }
+
+    /**
+     * Builds the table of a frozen intersection
+     * @param debug true to trace how every side was resolved
+     */
+    public static PhaseDeltaTable build(FrozenIntersection intersection, boolean debug) {
+        if (intersection.getNeutralState() == null) {
+            LOGGER.severe("ERROR: Neutral state is NULL for intersection " + intersection.getName());
+        }
+
+        // One position instance per block, shared by the targets of every phase
+        List<BlockPosition> positions = intersection.getPositions();
+
+        Map<CyclePhase, Target[]> frameArrays = new EnumMap<>(CyclePhase.class);
+        for (CyclePhase phase : CyclePhase.values()) {
+            frameArrays.put(phase, buildFrame(intersection, positions, phase, debug));
+        }
+
+        Map<CyclePhase, List<Target>> frames = new EnumMap<>(CyclePhase.class);
+        Map<CyclePhase, List<Target>> deltas = new EnumMap<>(CyclePhase.class);
+        for (CyclePhase phase : CyclePhase.values()) {
+            Target[] frame = frameArrays.get(phase);
+            Target[] previous = frameArrays.get(phase.getPrevious());
+
+            List<Target> all = new ArrayList<>(frame.length);
+            List<Target> delta = new ArrayList<>();
+            for (int block = 0; block < frame.length; block++) {
+                Target target = frame[block];
+                if (target == null) {
+                    continue;
+                }
+                all.add(target);
+                if (!target.sameAs(previous[block])) {
+                    delta.add(target);
+                }
+            }
+
+            frames.put(phase, Collections.unmodifiableList(all));
+            deltas.put(phase, Collections.unmodifiableList(delta));
+
+            if (debug) {
+                DebugTrace.trace(intersection.getName() + " " + phase.getPrevious() + " -> " + phase
+                        + ": " + delta.size() + " of " + all.size() + " blocks change");
+            }
+        }
+
+        return new PhaseDeltaTable(frames, deltas);
+    }
+
+    /**
+     * Gets the writes that show a phase from scratch
+     */
+    public List<Target> getFrame(CyclePhase phase) {
+        return frames.get(phase);
+    }
+
+    /**
+     * Gets the writes that turn the previous phase of the cycle into this one
+     */
+    public List<Target> getDelta(CyclePhase phase) {
+        return deltas.get(phase);
+    }
+
+    /**
+     * Resolves what every block of an intersection shows during a phase
+     * @return The target of each block by block index, later slots of a block override earlier ones
+     */
+    private static Target[] buildFrame(FrozenIntersection intersection, List<BlockPosition> positions,
+                                       CyclePhase currentPhase, boolean debug) {
+        BlockStateData neutralState = intersection.getNeutralState();
+        int sideCount = intersection.getSideCount();
+        Target[] frame = new Target[intersection.getBlockCount()];
+
+        for (int i = 0; i < sideCount; i++) {
+            // Determine phase based on actual direction, not index
+            LightPhase lightPhase;
+            boolean pedestrianGreen;
+
+            TrafficLightSide.DirectionGroup group = intersection.getSideGroup(i);
+            if (group == TrafficLightSide.DirectionGroup.NORTH_SOUTH) {
+                lightPhase = currentPhase.getNsPhase();
+                pedestrianGreen = currentPhase.isNsPedestrianGreen();
+            } else if (group == TrafficLightSide.DirectionGroup.EAST_WEST) {
+                lightPhase = currentPhase.getEwPhase();
+                pedestrianGreen = currentPhase.isEwPedestrianGreen();
+            } else {
+                // Fallback to index-based for unknown directions
+                lightPhase = currentPhase.getPhaseForSide(i, sideCount);
+                pedestrianGreen = currentPhase.isPedestrianGreen(i, sideCount);
+                LOGGER.warning("Side " + intersection.getSideDirection(i) + " of " + intersection.getName()
+                        + " has an unknown direction, falling back to index-based: " + lightPhase);
+            }
+
+            if (debug) {
+                DebugTrace.trace(currentPhase + ": side " + i + " (" + intersection.getSideDirection(i) + ", "
+                        + group + ") shows " + lightPhase + (pedestrianGreen ? ", pedestrians green" : ""));
+            }
+
+            int activeRole = FrozenIntersection.roleOf(lightPhase);
+            String direction = intersection.getSideDirection(i);
+            for (int slot = intersection.getSideSlotStart(i); slot < intersection.getSideSlotStart(i + 1); slot++) {
+                int block = intersection.getSlotBlock(slot);
+                BlockPosition blockPos = positions.get(block);
+                BlockStateData captured = intersection.getState(intersection.getSlotState(slot));
+                int role = intersection.getSlotRole(slot);
+
+                if (role == FrozenIntersection.ROLE_PEDESTRIAN_GREEN) {
+                    // Pedestrian lights preserve their original captured orientation, neutral blocks copy the
+                    // facing from the block they replace
+                    frame[block] = pedestrianGreen
+                            ? new Target(blockPos, captured, null, null, true, BlockWriteQueue.PRIORITY_GO)
+                            : new Target(blockPos, neutralState, null, captured, false, BlockWriteQueue.PRIORITY_STOP);
+                } else if (role == FrozenIntersection.ROLE_PEDESTRIAN_RED) {
+                    frame[block] = pedestrianGreen
+                            ? new Target(blockPos, neutralState, null, captured, false, BlockWriteQueue.PRIORITY_STOP)
+                            : new Target(blockPos, captured, null, null, true, BlockWriteQueue.PRIORITY_STOP);
+                } else if (role == activeRole) {
+                    // Road light of the active phase shows its captured block
+                    if (debug && neutralState != null && captured != null &&
+                        Objects.equals(captured.getMaterial(), neutralState.getMaterial()) &&
+                        captured.getBlockDataString().equals(neutralState.getBlockDataString())) {
+                        DebugTrace.trace("WARNING: Active block at " + blockPos + " is identical to neutral state! No visual change.");
+                    }
+
+                    frame[block] = new Target(blockPos, captured, direction, null, true, getWritePriority(lightPhase));
+                } else {
+                    frame[block] = new Target(blockPos, neutralState, direction, null, false, getWritePriority(null));
+                }
+            }
+        }
+
+        return frame;
+    }
+
+    /**
+     * Gets the write priority for a lamp switching to a phase (null = neutral)
+     * Lamps switching off and red lamps go first so that no side turns green before conflicting sides stop
+     */
+    private static int getWritePriority(LightPhase newState) {
+        if (newState == LightPhase.GREEN) {
+            return BlockWriteQueue.PRIORITY_GO;
+        }
+        if (newState == LightPhase.ORANGE) {
+            return BlockWriteQueue.PRIORITY_CAUTION;
+        }
+        return BlockWriteQueue.PRIORITY_STOP;
+    }
+
+    /**
+     * What one block shows during a phase
+     */
+    public static final class Target {
+        private final BlockPosition position;
+        private final BlockStateData state;
+        private final String direction;
+        private final BlockStateData facingSource;
+        private final boolean lit;
+        private final int priority;
+
+        private Target(BlockPosition position, BlockStateData state, String direction,
+                       BlockStateData facingSource, boolean lit, int priority) {
+            this.position = position;
+            this.state = state;
+            this.direction = direction;
+            this.facingSource = facingSource;
+            this.lit = lit;
+            this.priority = priority;
+        }
+
+        /**
+         * Checks if another target renders exactly the same block
+         */
+        private boolean sameAs(Target other) {
+            return other != null
+                    && state == other.state
+                    && facingSource == other.facingSource
+                    && lit == other.lit
+                    && Objects.equals(direction, other.direction);
+        }
+
+        public BlockPosition getPosition() {
+            return position;
+        }
+
+        public BlockStateData getState() {
+            return state;
+        }
+
+        public String getDirection() {
+            return direction;
+        }
+
+        public BlockStateData getFacingSource() {
+            return facingSource;
+        }
+
+        public boolean isLit() {
+            return lit;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.ctos.trafficlight.engine;
+
+import com.ctos.trafficlight.cycle.CyclePhase;
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.util.BlockWriteEvent;
+import com.ctos.util.DebugTrace;
+import com.ctos.util.Metrics;
+import com.ctos.util.PhaseChangeEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Render state for the intersections anchored in one region cell
+ *
+ * Everything except execute(), requestDrain() and close() must be called from the thread owning the
+ * partition, which keeps the rendered-phase map and the write queue free of locking. This base class
+ * owns the calling thread; the plugin's RegionPartition hops onto the region thread of its anchor chunk.
+ */
+public class RenderPartition {
+    // Partitions group intersections by cells of 16x16 chunks
+    public static final int CELL_SHIFT = 4;
+
+    private final BlockSink sink;
+    private final WriteBudget budget;
+    private final BlockPosition anchor;
+    private final Map<UUID, CyclePhase> renderedPhases; // Phase each intersection's queued writes lead to
+    private final BlockWriteQueue writeQueue;
+    private volatile boolean pendingWrites; // Writes left over for a later tick
+    private volatile boolean closed;
+
+    public RenderPartition(BlockSink sink, WriteBudget budget, BlockPosition anchor) {
+        this.sink = sink;
+        this.budget = budget;
+        this.anchor = anchor;
+        this.renderedPhases = new HashMap<>();
+        this.writeQueue = new BlockWriteQueue();
+    }
+
+    /**
+     * Gets the key of the cell a chunk belongs to
+     */
+    public static String cellKey(String worldName, int chunkX, int chunkZ) {
+        return worldName + ":" + (chunkX >> CELL_SHIFT) + ":" + (chunkZ >> CELL_SHIFT);
+    }
+
+    /**
+     * Runs a task on the thread owning this partition
+     * The base partition runs it immediately on the calling thread
+     */
+    public void execute(Runnable task) {
+        if (!closed) {
+            task.run();
+        }
+    }
+
+    /**
+     * Renders an intersection for a cycle phase and applies the writes that fit in the budget
+     * Coming from the previous phase only the delta is queued, otherwise the whole frame
+     * @param resync true to write every block again even if the phase was already rendered
+     */
+    public void render(UUID intersectionId, PhaseDeltaTable table, CyclePhase phase, boolean resync) {
+        if (closed) {
+            return;
+        }
+
+        CyclePhase rendered = renderedPhases.put(intersectionId, phase);
+        if (!resync && rendered == phase) {
+            Metrics.SKIPPED_WRITES.add(table.getFrame(phase).size());
+            return;
+        }
+
+        // Begun after the skip so an event is never left open
+        PhaseChangeEvent event = new PhaseChangeEvent();
+        event.begin();
+
+        List<PhaseDeltaTable.Target> targets;
+        if (!resync && rendered == phase.getPrevious()) {
+            targets = table.getDelta(phase);
+            Metrics.SKIPPED_WRITES.add(table.getFrame(phase).size() - targets.size());
+        } else {
+            targets = table.getFrame(phase);
+        }
+
+        if (DebugTrace.isEnabled()) {
+            DebugTrace.trace("Rendering " + intersectionId + " " + rendered + " -> " + phase + ": " + targets.size() + " writes");
+        }
+        for (PhaseDeltaTable.Target target : targets) {
+            if (writeQueue.enqueue(target.getPosition(), target.getState(), target.getDirection(),
+                    target.getFacingSource(), target.isLit(), target.getPriority())) {
+                Metrics.SKIPPED_WRITES.increment(); // The pending write it replaced never reaches the sink
+            }
+        }
+        int written = drain();
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.intersectionId = intersectionId.toString();
+            event.phase = phase.toString();
+            event.previousPhase = rendered != null ? rendered.toString() : null;
+            event.rendered = true;
+            event.resync = resync;
+            event.blocksQueued = targets.size();
+            event.blocksWritten = written;
+            event.commit();
+        }
+    }
+
+    /**
+     * Forgets the rendered phase and pending writes of a removed intersection
+     */
+    public void removeIntersection(UUID intersectionId, Collection<BlockPosition> blocks) {
+        renderedPhases.remove(intersectionId);
+        for (BlockPosition pos : blocks) {
+            writeQueue.remove(pos);
+        }
+        pendingWrites = !writeQueue.isEmpty();
+        sink.forget(blocks);
+    }
+
+    /**
+     * Writes queued block writes while the tick's write budget lasts, the rest wait for a later drain
+     * @return Number of writes handed to the sink
+     */
+    public int drain() {
+        if (closed) {
+            return 0;
+        }
+
+        List<BlockWriteQueue.BlockWrite> batch = new ArrayList<>();
+        BlockWriteQueue.BlockWrite write;
+        while (!writeQueue.isEmpty() && budget.tryAcquire()) {
+            write = writeQueue.poll();
+            if (write == null) {
+                break;
+            }
+            batch.add(write);
+        }
+
+        if (!batch.isEmpty()) {
+            BlockWriteEvent event = new BlockWriteEvent();
+            event.begin();
+            sink.write(batch);
+            event.end();
+            Metrics.BLOCK_WRITES.add(batch.size());
+
+            if (event.shouldCommit()) {
+                event.renderer = sink.getClass().getSimpleName();
+                event.world = anchor.getWorldName();
+                event.chunkX = anchor.getChunkX();
+                event.chunkZ = anchor.getChunkZ();
+                event.blocksWritten = batch.size();
+                event.blocksQueued = writeQueue.size();
+                event.commit();
+            }
+        }
+
+        pendingWrites = !writeQueue.isEmpty();
+        return batch.size();
+    }
+
+    /**
+     * Drains the writes left over from earlier ticks on the owning thread, if there are any
+     * Called by the engine once per tick, after the write budget was refilled
+     */
+    public void requestDrain() {
+        if (pendingWrites && !closed) {
+            execute(this::drain);
+        }
+    }
+
+    /**
+     * Stops this partition, pending and scheduled work is dropped
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Gets the number of block writes waiting for budget on a later tick
+     */
+    public int getQueuedWriteCount() {
+        return writeQueue.size();
+    }
+
+    public BlockPosition getAnchor() {
+        return anchor;
+    }
+}
@@ -0,0 +1,358 @@
+package com.ctos.trafficlight.engine;
+
+import com.ctos.trafficlight.cycle.CycleClock;
+import com.ctos.trafficlight.cycle.CyclePhase;
+import com.ctos.trafficlight.cycle.PhaseScheduler;
+import com.ctos.trafficlight.cycle.TickCycleClock;
+import com.ctos.trafficlight.cycle.TrafficCycle;
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.model.BlockStateData;
+import com.ctos.trafficlight.model.FrozenIntersection;
+import com.ctos.trafficlight.model.Intersection;
+import com.ctos.util.DebugTrace;
+import com.ctos.util.Metrics;
+import com.ctos.util.PhaseChangeEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cycle model, phase scheduling and render decisions of every animated intersection, without a server
+ *
+ * The host calls tick() once per server tick and decides where partitions run (see PartitionFactory).
+ * Block writes leave the engine through a BlockSink, visibility comes in through a WorldView, so the
+ * same engine drives the Paper plugin and headless simulations with a MemoryBlockSink.
+ */
+public class TrafficEngine {
+    private static final Logger LOGGER = Logger.getLogger("ctOS");
+
+    /**
+     * Creates the partition for the region cell an anchor block is in
+     */
+    public interface PartitionFactory {
+        RenderPartition create(BlockSink sink, WriteBudget budget, BlockPosition anchor);
+    }
+
+    private final BlockSink sink;
+    private final PartitionFactory partitionFactory;
+    private final Map<UUID, TrafficCycle> cycles;
+    private final Map<String, RenderPartition> partitions; // cell key -> partition
+    private final Map<UUID, RenderPartition> partitionsByIntersection;
+    private final Map<UUID, PhaseDeltaTable> deltaTables; // Rebuilt whenever an intersection is (re)registered
+    private final PhaseScheduler scheduler;
+    private final ChunkBlockIndex chunkIndex;
+    private final TickCycleClock serverClock; // Advanced once per tick()
+    private final WriteBudget writeBudget; // Block writes left this tick, shared by all partitions
+    private volatile CycleClock cycleClock; // Clock the cycles measure phase durations with
+    private volatile WorldView worldView;
+
+    /**
+     * Creates an engine whose partitions run on the calling thread
+     */
+    public TrafficEngine(BlockSink sink, int maxBlockWritesPerTick) {
+        this(sink, maxBlockWritesPerTick, RenderPartition::new);
+    }
+
+    public TrafficEngine(BlockSink sink, int maxBlockWritesPerTick, PartitionFactory partitionFactory) {
+        this.sink = sink;
+        this.partitionFactory = partitionFactory;
+        this.cycles = new ConcurrentHashMap<>();
+        this.partitions = new ConcurrentHashMap<>();
+        this.partitionsByIntersection = new ConcurrentHashMap<>();
+        this.deltaTables = new ConcurrentHashMap<>();
+        this.scheduler = new PhaseScheduler();
+        this.chunkIndex = new ChunkBlockIndex();
+        this.serverClock = new TickCycleClock();
+        this.writeBudget = new WriteBudget(maxBlockWritesPerTick);
+        this.cycleClock = serverClock;
+        this.worldView = WorldView.ALL_VISIBLE;
+    }
+
+    /**
+     * Registers an intersection, replacing the cycle it had if it was registered before
+     * Incomplete intersections are ignored
+     * @return true if the intersection is now animated
+     */
+    public boolean register(Intersection intersection) {
+        if (!intersection.isComplete()) {
+            return false;
+        }
+
+        // Frozen by the intersection manager when it was registered or edited
+        FrozenIntersection frozen = intersection.getFrozen();
+        prepareStates(frozen);
+        PhaseDeltaTable table = PhaseDeltaTable.build(frozen, DebugTrace.isEnabled());
+        deltaTables.put(intersection.getId(), table);
+        TrafficCycle cycle = new TrafficCycle(intersection, cycleClock);
+        TrafficCycle previous = cycles.put(intersection.getId(), cycle);
+        if (previous != null) {
+            scheduler.cancel(previous);
+        }
+        chunkIndex.add(frozen);
+        assignPartition(frozen);
+        sink.prepareBlocks(frozen, table.getFrame(cycle.getCurrentPhase()));
+        scheduleNextChange(cycle);
+        return true;
+    }
+
+    /**
+     * Unregisters an intersection, its pending writes are dropped and the sink forgets its blocks
+     */
+    public void unregister(Intersection intersection) {
+        // The form it was registered with, the mutable model may already hold unsaved edits
+        FrozenIntersection frozen = intersection.getFrozen();
+        TrafficCycle cycle = cycles.remove(intersection.getId());
+        deltaTables.remove(intersection.getId());
+        if (cycle != null) {
+            scheduler.cancel(cycle);
+        }
+        chunkIndex.remove(intersection.getId());
+
+        // Clear block states and pending writes for this intersection, on the thread owning them
+        RenderPartition partition = partitionsByIntersection.remove(intersection.getId());
+        if (partition != null) {
+            List<BlockPosition> blocks = frozen.getPositions();
+            partition.execute(() -> partition.removeIntersection(intersection.getId(), blocks));
+        }
+
+        // Prepared states live on shared palette states, the palette drops them once they are unreferenced
+    }
+
+    /**
+     * Assigns an intersection to the partition of the region cell its first red lamp is in
+     */
+    private void assignPartition(FrozenIntersection intersection) {
+        int anchorBlock = intersection.getAnchorBlock();
+        if (anchorBlock < 0) {
+            return;
+        }
+
+        BlockPosition anchor = intersection.getPosition(anchorBlock);
+
+        RenderPartition partition = partitions.computeIfAbsent(
+                RenderPartition.cellKey(anchor.getWorldName(), anchor.getChunkX(), anchor.getChunkZ()),
+                key -> partitionFactory.create(sink, writeBudget, anchor));
+
+        RenderPartition previous = partitionsByIntersection.put(intersection.getId(), partition);
+        if (previous != null && previous != partition) {
+            // Edited into another cell: the old partition no longer owns these blocks
+            List<BlockPosition> blocks = intersection.getPositions();
+            previous.execute(() -> previous.removeIntersection(intersection.getId(), blocks));
+        }
+    }
+
+    /**
+     * Lets the sink prepare every block state of an intersection so phase changes only apply cached data
+     */
+    private void prepareStates(FrozenIntersection intersection) {
+        for (BlockStateData state : intersection.getStates()) {
+            try {
+                sink.prepare(state);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Failed to compile block state " + state.getBlockDataString()
+                        + " for intersection " + intersection.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Advances the engine by one tick
+     * Refills the write budget, drains writes left over from earlier ticks, then only touches the
+     * cycles whose phase change is due
+     */
+    public void tick() {
+        long start = System.nanoTime();
+        serverClock.advance();
+        // Deadlines are in the cycle clock's time base, with wall time a lagging tick catches up here
+        long currentTick = cycleClock.currentTick();
+        writeBudget.reset();
+
+        for (RenderPartition partition : partitions.values()) {
+            partition.requestDrain();
+        }
+
+        TrafficCycle cycle;
+        while ((cycle = scheduler.pollDue(currentTick)) != null) {
+            // Tick the cycle (returns true if phase changed)
+            boolean phaseChanged = cycle.tick();
+            if (phaseChanged) {
+                Metrics.PHASE_TRANSITIONS.increment();
+            }
+
+            // Intersections nobody can see only advance in the cycle model, they are reconciled on approach
+            if (phaseChanged && isInView(cycle.getIntersection())) {
+                render(cycle.getIntersection(), cycle.getCurrentPhase(), false);
+            } else if (phaseChanged) {
+                recordUnrenderedPhaseChange(cycle);
+            }
+
+            scheduleNextChange(cycle);
+        }
+
+        Metrics.recordTick(start, System.nanoTime());
+    }
+
+    /**
+     * Records a JFR phase change for an intersection that advanced without being rendered
+     */
+    private void recordUnrenderedPhaseChange(TrafficCycle cycle) {
+        PhaseChangeEvent event = new PhaseChangeEvent();
+        if (event.shouldCommit()) {
+            event.intersectionId = cycle.getIntersection().getId().toString();
+            event.phase = cycle.getCurrentPhase().toString();
+            event.rendered = false;
+            event.commit();
+        }
+    }
+
+    /**
+     * Hands an intersection to its partition for rendering
+     * The phase is captured now, the partition may run it later on another thread
+     */
+    private void render(Intersection intersection, CyclePhase phase, boolean resync) {
+        RenderPartition partition = partitionsByIntersection.get(intersection.getId());
+        if (partition == null) {
+            return;
+        }
+        PhaseDeltaTable table = deltaTables.get(intersection.getId());
+        if (table == null) {
+            return;
+        }
+        partition.execute(() -> partition.render(intersection.getId(), table, phase, resync));
+    }
+
+    /**
+     * Re-queues the current expected state of the intersections with blocks in a chunk
+     * Cycles keep advancing while their chunks are out of view, so the blocks may be several phases behind
+     */
+    public void resyncChunk(String worldName, int chunkX, int chunkZ) {
+        Map<UUID, List<BlockPosition>> blocksInChunk = chunkIndex.getBlocksInChunk(worldName, chunkX, chunkZ);
+        if (blocksInChunk.isEmpty()) {
+            return;
+        }
+
+        for (UUID intersectionId : blocksInChunk.keySet()) {
+            TrafficCycle cycle = cycles.get(intersectionId);
+            if (cycle == null) {
+                continue;
+            }
+
+            // Resync re-queues every block of the intersection, its other chunks may have been skipped
+            // while out of view too
+            render(cycle.getIntersection(), cycle.getCurrentPhase(), true);
+        }
+    }
+
+    /**
+     * Checks if an intersection should be rendered: only if one of its chunks is visible
+     */
+    private boolean isInView(Intersection intersection) {
+        WorldView view = worldView;
+        if (view == WorldView.ALL_VISIBLE) {
+            return true;
+        }
+
+        for (Map.Entry<String, Set<Long>> entry : chunkIndex.getChunks(intersection.getId()).entrySet()) {
+            for (long chunkKey : entry.getValue()) {
+                if (view.isChunkVisible(entry.getKey(), chunkKey)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Schedules the next phase check of a cycle on the cycle clock tick its current phase ends
+     */
+    private void scheduleNextChange(TrafficCycle cycle) {
+        // Always at least one tick ahead, a cycle of zero-length phases would otherwise be polled forever
+        long now = cycle.getClock().currentTick();
+        scheduler.schedule(cycle, Math.max(now + 1, cycle.getPhaseEndTick()));
+    }
+
+    /**
+     * Drops every cycle and partition and lets the sink forget everything written
+     * Partitions may still have work scheduled on other threads, closing drops it
+     */
+    public void clear() {
+        for (RenderPartition partition : partitions.values()) {
+            partition.close();
+        }
+
+        cycles.clear();
+        deltaTables.clear();
+        partitions.clear();
+        partitionsByIntersection.clear();
+        scheduler.clear();
+        chunkIndex.clear();
+        sink.clear();
+    }
+
+    /**
+     * Gets the tick clock advanced by tick()
+     */
+    public TickCycleClock getServerClock() {
+        return serverClock;
+    }
+
+    /**
+     * Sets the clock cycles measure phase durations and are scheduled with (the server clock by default)
+     * Must be set before intersections are registered, deadlines of registered cycles keep their time base
+     */
+    public void setCycleClock(CycleClock cycleClock) {
+        this.cycleClock = cycleClock;
+    }
+
+    /**
+     * Sets what decides whether a phase change is rendered (every chunk is visible by default)
+     */
+    public void setWorldView(WorldView worldView) {
+        this.worldView = worldView;
+    }
+
+    public WriteBudget getWriteBudget() {
+        return writeBudget;
+    }
+
+    public BlockSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Gets the current cycle of an intersection
+     */
+    public TrafficCycle getCycle(UUID intersectionId) {
+        return cycles.get(intersectionId);
+    }
+
+    /**
+     * Gets the number of active cycles
+     */
+    public int getActiveCycleCount() {
+        return cycles.size();
+    }
+
+    /**
+     * Gets the number of cycles waiting for their next phase change
+     */
+    public int getScheduledCount() {
+        return scheduler.size();
+    }
+
+    /**
+     * Gets the number of block writes waiting for budget on a later tick
+     */
+    public int getQueuedWriteCount() {
+        int count = 0;
+        for (RenderPartition partition : partitions.values()) {
+            count += partition.getQueuedWriteCount();
+        }
+        return count;
+    }
+}
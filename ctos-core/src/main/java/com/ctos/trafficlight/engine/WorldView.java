@@ -0,0 +1,19 @@
+package com.ctos.trafficlight.engine;
+
+/**
+ * What the engine knows about the world around its intersections
+ * Intersections with no visible chunk only advance in the cycle model and are resynced on approach
+ */
+public interface WorldView {
+
+    /**
+     * Sees every chunk, every phase change is rendered
+     */
+    WorldView ALL_VISIBLE = (worldName, chunkKey) -> true;
+
+    /**
+     * Checks if a chunk is worth rendering (e.g. a player is near it)
+     * @param chunkKey Packed chunk coordinates (see ChunkBlockIndex.chunkKey)
+     */
+    boolean isChunkVisible(String worldName, long chunkKey);
+}
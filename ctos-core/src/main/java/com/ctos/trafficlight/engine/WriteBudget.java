@@ -0,0 +1,40 @@
+package com.ctos.trafficlight.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Block writes left in the current tick, shared by every partition
+ * Reset by the engine at the start of each tick, writes beyond it spill over to later ticks
+ */
+public final class WriteBudget {
+    private final AtomicInteger remaining;
+    private volatile int limit; // 0 or less = unlimited
+
+    public WriteBudget(int limit) {
+        this.limit = limit;
+        this.remaining = new AtomicInteger(limit > 0 ? limit : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Refills the budget for a new tick
+     */
+    public void reset() {
+        remaining.set(limit > 0 ? limit : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Takes one block write from the budget
+     * @return false if the budget is used up and the write must wait for a later tick
+     */
+    public boolean tryAcquire() {
+        return limit <= 0 || remaining.getAndDecrement() > 0;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
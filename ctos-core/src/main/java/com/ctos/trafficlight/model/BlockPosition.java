@@ -0,0 +1,181 @@
+package com.ctos.trafficlight.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable representation of a block position in the world
+ * Worlds are referenced by name only, the plugin resolves them (see BukkitPositions)
+ *
+ * Coordinates pack into a single long (see pack) and the world name into a small interned id,
+ * so indexes can key on primitives instead of on BlockPosition objects.
+ */
+public class BlockPosition {
+    // World name -> small id, and back; ids are never reused
+    private static final Map<String, Integer> WORLD_IDS = new ConcurrentHashMap<>();
+    // Id -> name, replaced copy-on-write so lookups never lock
+    private static volatile String[] worldNames = new String[0];
+
+    // Bit layout of packed coordinates: x (26 bits) | z (26 bits) | y (12 bits)
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+
+    private final String worldName;
+    private final int worldId;
+    private final int x;
+    private final int y;
+    private final int z;
+
+    public BlockPosition(String worldName, int x, int y, int z) {
+        this.worldId = worldId(worldName);
+        // Shared instance per world instead of one string per position
+        this.worldName = worldName(worldId);
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    /**
+     * Gets the interned id of a world name, assigning one on first use
+     */
+    public static int worldId(String worldName) {
+        Integer id = WORLD_IDS.get(worldName);
+        if (id != null) {
+            return id;
+        }
+
+        // Only appending a new world locks; the name is published before its id
+        synchronized (WORLD_IDS) {
+            return WORLD_IDS.computeIfAbsent(worldName, name -> {
+                String[] current = worldNames;
+                String[] updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = name;
+                worldNames = updated;
+                return current.length;
+            });
+        }
+    }
+
+    /**
+     * Gets the id of a world name without assigning one
+     * @return The id, or -1 if no position in this world was ever created
+     */
+    public static int findWorldId(String worldName) {
+        Integer id = WORLD_IDS.get(worldName);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Gets the world name of an interned id
+     */
+    public static String worldName(int worldId) {
+        return worldNames[worldId];
+    }
+
+    /**
+     * Packs block coordinates into a long
+     * Covers x/z within +-33,554,431 and y within -2048..2047, the whole vanilla world
+     */
+    public static long pack(int x, int y, int z) {
+        return ((x & XZ_MASK) << (XZ_BITS + Y_BITS)) | ((z & XZ_MASK) << Y_BITS) | (y & Y_MASK);
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed >> (XZ_BITS + Y_BITS));
+    }
+
+    public static int unpackY(long packed) {
+        return (int) (packed << (64 - Y_BITS) >> (64 - Y_BITS));
+    }
+
+    public static int unpackZ(long packed) {
+        return (int) (packed << XZ_BITS >> (XZ_BITS + Y_BITS));
+    }
+
+    /**
+     * Gets the position from a world id and packed coordinates
+     */
+    public static BlockPosition unpack(int worldId, long packed) {
+        return new BlockPosition(worldName(worldId), unpackX(packed), unpackY(packed), unpackZ(packed));
+    }
+
+    public int getChunkX() {
+        return x >> 4;
+    }
+
+    public int getChunkZ() {
+        return z >> 4;
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public int getWorldId() {
+        return worldId;
+    }
+
+    /**
+     * Gets the packed coordinates of this position (the world is not included, see getWorldId)
+     */
+    public long pack() {
+        return pack(x, y, z);
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BlockPosition that = (BlockPosition) o;
+        return x == that.x &&
+                y == that.y &&
+                z == that.z &&
+                worldId == that.worldId;
+    }
+
+    @Override
+    public int hashCode() {
+        // Same mixing as Objects.hash without boxing the coordinates
+        int result = 31 + worldId;
+        result = 31 * result + x;
+        result = 31 * result + y;
+        return 31 * result + z;
+    }
+
+    @Override
+    public String toString() {
+        return worldName + "_" + x + "_" + y + "_" + z;
+    }
+
+    /**
+     * Creates a BlockPosition from a string representation
+     * Format: "worldName_x_y_z"
+     */
+    public static BlockPosition fromString(String str) {
+        String[] parts = str.split("_", 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid BlockPosition string: " + str);
+        }
+        return new BlockPosition(
+                parts[0],
+                Integer.parseInt(parts[1]),
+                Integer.parseInt(parts[2]),
+                Integer.parseInt(parts[3])
+        );
+    }
+}
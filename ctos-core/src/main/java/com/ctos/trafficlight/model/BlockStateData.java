@@ -0,0 +1,213 @@
+package com.ctos.trafficlight.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Complete block data storage including NBT metadata
+ * Critical for preserving player heads with textures
+ *
+ * Only the captured strings live here: material name, block data string and serialized head profile.
+ * Parsing them into server objects, capturing and applying blocks is done by the plugin (see
+ * BukkitBlockStates), which keeps its compiled form in this state's render cache slot.
+ */
+public class BlockStateData {
+    private static final String PLAYER_HEAD = "PLAYER_HEAD";
+    private static final String PLAYER_WALL_HEAD = "PLAYER_WALL_HEAD";
+
+    // Side direction name -> head facing (empty string = unknown direction, keep original)
+    private static final Map<String, String> DIRECTION_FACINGS = new ConcurrentHashMap<>();
+
+    // Serialized profile -> canonical instance, so lamps using the same head share one string
+    private static final Map<String, String> PROFILE_DATA_POOL = new ConcurrentHashMap<>();
+
+    private String material; // Material name, e.g. PLAYER_WALL_HEAD
+    private String blockDataString;
+    private String playerProfileData; // For player heads
+
+    private final String capturedFacing; // Facing parsed from blockDataString, or null
+    private final boolean facingAdjustable; // Player head with a facing property
+    // Compiled form of this state, owned by the block sink that renders it (null = not compiled)
+    private volatile Object renderCache;
+
+    public BlockStateData(String material, String blockDataString, String playerProfileData) {
+        this.material = material;
+        this.blockDataString = blockDataString;
+        this.playerProfileData = internProfileData(playerProfileData);
+        this.capturedFacing = parseFacing(blockDataString);
+        this.facingAdjustable = capturedFacing != null && blockDataString.contains("player");
+    }
+
+    /**
+     * Gets the compiled form the block sink stored for this state
+     * @return The render cache, or null if it was never compiled or was invalidated
+     */
+    public Object getRenderCache() {
+        return renderCache;
+    }
+
+    /**
+     * Stores the compiled form of this state, built once and reused for every write
+     */
+    public void setRenderCache(Object renderCache) {
+        this.renderCache = renderCache;
+    }
+
+    /**
+     * Drops the compiled form, the next write recompiles on demand
+     */
+    public void invalidateRenderCache() {
+        renderCache = null;
+    }
+
+    /**
+     * Returns the pooled instance of a serialized profile
+     */
+    private static String internProfileData(String playerProfileData) {
+        if (playerProfileData == null) {
+            return null;
+        }
+        String pooled = PROFILE_DATA_POOL.putIfAbsent(playerProfileData, playerProfileData);
+        return pooled != null ? pooled : playerProfileData;
+    }
+
+    /**
+     * Extracts the facing direction from this block's blockDataString
+     * @return The facing direction (north/south/east/west) or null if not found
+     */
+    public String extractFacing() {
+        return capturedFacing;
+    }
+
+    /**
+     * Checks if this is a player head whose facing can be rotated per side
+     */
+    public boolean isFacingAdjustable() {
+        return facingAdjustable;
+    }
+
+    /**
+     * Checks if this is a player head (floor or wall)
+     */
+    public boolean isPlayerHead() {
+        return PLAYER_HEAD.equals(material) || PLAYER_WALL_HEAD.equals(material);
+    }
+
+    /**
+     * Parses the facing value out of a blockData string
+     */
+    private static String parseFacing(String blockDataString) {
+        if (blockDataString == null || !blockDataString.contains("facing=")) {
+            return null;
+        }
+        // Extract facing value from string like "minecraft:player_wall_head[facing=north]"
+        int start = blockDataString.indexOf("facing=") + 7;
+        int end = start;
+        while (end < blockDataString.length() && Character.isLetter(blockDataString.charAt(end))) {
+            end++;
+        }
+        return blockDataString.substring(start, end);
+    }
+
+    /**
+     * Replaces the facing property of a blockData string
+     * @return The string with the new facing, or unchanged if it has no facing property
+     */
+    public static String withFacing(String blockDataString, String facing) {
+        return blockDataString.replaceFirst("facing=[a-z]+", "facing=" + facing);
+    }
+
+    /**
+     * Maps a side direction to the facing a head on that side must have
+     * Results are memoized since sides only ever use a handful of direction names
+     * @return The facing (north/south/east/west) or null for an unknown direction
+     */
+    public static String facingForDirection(String direction) {
+        if (direction == null) {
+            return null;
+        }
+
+        String facing = DIRECTION_FACINGS.computeIfAbsent(direction, dir -> {
+            // The head must face OPPOSITE to the side direction:
+            // A "South" side is for drivers coming FROM the south, so the head must face NORTH (towards them)
+            String dirLower = dir.toLowerCase();
+            if (dirLower.contains("north")) {
+                return "south";  // North side -> face South (towards drivers coming from north)
+            } else if (dirLower.contains("south")) {
+                return "north";  // South side -> face North (towards drivers coming from south)
+            } else if (dirLower.contains("east")) {
+                return "west";   // East side -> face West (towards drivers coming from east)
+            } else if (dirLower.contains("west")) {
+                return "east";   // West side -> face East (towards drivers coming from west)
+            }
+            return ""; // Unknown direction, keep original
+        });
+
+        return facing.isEmpty() ? null : facing;
+    }
+
+    /**
+     * Upgrades serialized profile data from the old URL-only format to one carrying the textures property
+     * @return The upgraded data, or the input unchanged if it needs no migration
+     */
+    public static String migrateProfileData(String data) {
+        if (data == null) {
+            return null;
+        }
+
+        String[] parts = data.split("\\|", -1);
+        if (parts.length < 3 || parts[2].isEmpty() || (parts.length > 3 && !parts[3].isEmpty())) {
+            return data;
+        }
+
+        return parts[0] + "|" + parts[1] + "|" + parts[2] + "|" + encodeTexturesValue(parts[2]) + "|";
+    }
+
+    /**
+     * Encodes a skin URL as a textures property value, the same JSON the session servers return
+     */
+    public static String encodeTexturesValue(String skinUrl) {
+        String json = "{\"textures\":{\"SKIN\":{\"url\":\"" + skinUrl + "\"}}}";
+        return Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a deep copy of this BlockStateData
+     */
+    public BlockStateData clone() {
+        return new BlockStateData(material, blockDataString, playerProfileData);
+    }
+
+    /**
+     * Gets the material name, e.g. PLAYER_WALL_HEAD
+     */
+    public String getMaterial() {
+        return material;
+    }
+
+    public String getBlockDataString() {
+        return blockDataString;
+    }
+
+    public String getPlayerProfileData() {
+        return playerProfileData;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BlockStateData that = (BlockStateData) o;
+        return Objects.equals(material, that.material) &&
+                Objects.equals(blockDataString, that.blockDataString) &&
+                Objects.equals(playerProfileData, that.playerProfileData);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(material, blockDataString, playerProfileData);
+    }
+}
@@ -0,0 +1,87 @@
+package com.ctos.trafficlight.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Global palette of canonical block states
+ *
+ * Most lamps of a city share a handful of states (same heads, same neutral block). Captured and
+ * loaded states are interned here so equal states collapse to one instance, which also carries the
+ * only copy of their compiled render cache. Only referenced states are kept: frozen intersections
+ * hold a reference on each distinct state they use, and when the last one is released the entry and
+ * its render cache are dropped. A state nobody acquires (a wand capture, a loaded file that is never
+ * registered) never enters the palette.
+ */
+public final class BlockStatePalette {
+    private static final Map<BlockStateData, Entry> ENTRIES = new HashMap<>();
+
+    private BlockStatePalette() {
+    }
+
+    /**
+     * Gets the canonical instance of a state
+     * @return The canonical state, or the state itself if no equal state is referenced (it only becomes
+     *         canonical when acquired)
+     */
+    public static synchronized BlockStateData intern(BlockStateData state) {
+        if (state == null) {
+            return null;
+        }
+        Entry entry = ENTRIES.get(state);
+        return entry != null ? entry.state : state;
+    }
+
+    /**
+     * Adds a reference to a state, making it canonical if no equal state is referenced yet
+     * @return The canonical state, or null for null
+     */
+    public static synchronized BlockStateData acquire(BlockStateData state) {
+        if (state == null) {
+            return null;
+        }
+
+        Entry entry = ENTRIES.computeIfAbsent(state, Entry::new);
+        entry.references++;
+        return entry.state;
+    }
+
+    /**
+     * Removes a reference from a canonical state, dropping it once unreferenced
+     */
+    public static synchronized void release(BlockStateData state) {
+        if (state == null) {
+            return;
+        }
+
+        // Looked up by equality: an acquired copy released by a later holder still counts
+        Entry entry = ENTRIES.get(state);
+        if (entry == null) {
+            return;
+        }
+
+        if (--entry.references <= 0) {
+            ENTRIES.remove(state);
+            entry.state.invalidateRenderCache();
+        }
+    }
+
+    /**
+     * Gets the number of distinct states in the palette
+     */
+    public static synchronized int size() {
+        return ENTRIES.size();
+    }
+
+    /**
+     * Canonical state and the number of frozen intersections using it
+     */
+    private static final class Entry {
+        private final BlockStateData state;
+        private int references;
+
+        private Entry(BlockStateData state) {
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.ctos.trafficlight.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Immutable structure-of-arrays form of a completed intersection
+ *
+ * The mutable Intersection / TrafficLightSide model is only used while a wand session edits it.
+ * Registering an intersection freezes it into parallel arrays that the animator and the indexes read
+ * without copying: one entry per distinct block (world id and coordinates) and one entry per lamp
+ * slot (block, side, role bit and palette index of its captured state). Slots are ordered by side,
+ * then red, orange, green, pedestrian green, pedestrian red, like the sides list them.
+ * Palette states are the canonical instances of BlockStatePalette, referenced while the form is retained.
+ */
+public final class FrozenIntersection {
+    // Lamp roles, combined as bitfields per block
+    public static final int ROLE_RED = 1;
+    public static final int ROLE_ORANGE = 1 << 1;
+    public static final int ROLE_GREEN = 1 << 2;
+    public static final int ROLE_PEDESTRIAN_GREEN = 1 << 3;
+    public static final int ROLE_PEDESTRIAN_RED = 1 << 4;
+
+    // Palette index of the neutral state
+    public static final int NEUTRAL = 0;
+
+    private final UUID id;
+    private final String name;
+
+    // Sides
+    private final String[] sideDirections;
+    private final TrafficLightSide.DirectionGroup[] sideGroups;
+    private final boolean[] sidePedestrianLights;
+    private final int[] sideSlotStart; // First slot of each side, plus the total slot count
+
+    // Distinct blocks
+    private final int[] blockWorld;
+    private final int[] blockX;
+    private final int[] blockY;
+    private final int[] blockZ;
+    private final int[] blockRoles;
+
+    // Lamp slots
+    private final int[] slotBlock;
+    private final int[] slotSide;
+    private final int[] slotRole;
+    private final int[] slotState; // Palette index, -1 if the side has no captured state for the block
+
+    // Distinct block states by identity, neutral first (may be null on incomplete intersections)
+    private final BlockStateData[] palette;
+    private final AtomicBoolean retained = new AtomicBoolean();
+
+    private FrozenIntersection(Builder builder, Intersection intersection) {
+        this.id = intersection.getId();
+        this.name = intersection.getName();
+
+        int sideCount = builder.sideDirections.size();
+        this.sideDirections = builder.sideDirections.toArray(new String[0]);
+        this.sideGroups = builder.sideGroups.toArray(new TrafficLightSide.DirectionGroup[0]);
+        this.sidePedestrianLights = Arrays.copyOf(builder.sidePedestrianLights, sideCount);
+        this.sideSlotStart = Arrays.copyOf(builder.sideSlotStart, sideCount + 1);
+
+        int blockCount = builder.blocks.size();
+        this.blockWorld = new int[blockCount];
+        this.blockX = new int[blockCount];
+        this.blockY = new int[blockCount];
+        this.blockZ = new int[blockCount];
+        this.blockRoles = Arrays.copyOf(builder.blockRoles, blockCount);
+        int i = 0;
+        for (BlockPosition pos : builder.blocks.keySet()) {
+            blockWorld[i] = pos.getWorldId();
+            blockX[i] = pos.getX();
+            blockY[i] = pos.getY();
+            blockZ[i] = pos.getZ();
+            i++;
+        }
+
+        int slotCount = builder.slotCount;
+        this.slotBlock = Arrays.copyOf(builder.slotBlock, slotCount);
+        this.slotSide = Arrays.copyOf(builder.slotSide, slotCount);
+        this.slotRole = Arrays.copyOf(builder.slotRole, slotCount);
+        this.slotState = Arrays.copyOf(builder.slotState, slotCount);
+
+        this.palette = builder.palette.toArray(new BlockStateData[0]);
+    }
+
+    /**
+     * Freezes the current content of an intersection
+     */
+    static FrozenIntersection of(Intersection intersection) {
+        Builder builder = new Builder(intersection.getNeutralState());
+
+        for (TrafficLightSide side : intersection.getSides()) {
+            builder.startSide(side);
+            for (LightPhase phase : LightPhase.values()) {
+                for (BlockPosition pos : side.getLightBlocks(phase)) {
+                    builder.addSlot(side, pos, roleOf(phase));
+                }
+            }
+            if (side.hasPedestrianLights()) {
+                for (BlockPosition pos : side.getPedestrianGreenBlocks()) {
+                    builder.addSlot(side, pos, ROLE_PEDESTRIAN_GREEN);
+                }
+                for (BlockPosition pos : side.getPedestrianRedBlocks()) {
+                    builder.addSlot(side, pos, ROLE_PEDESTRIAN_RED);
+                }
+            }
+        }
+
+        return new FrozenIntersection(builder, intersection);
+    }
+
+    /**
+     * Adds a palette reference on every distinct state (called when this becomes the intersection's form)
+     * States that were not canonical yet become canonical here, or are swapped for the equal canonical one
+     * acquired in the meantime. Called before the form is published.
+     */
+    void retainStates() {
+        if (retained.compareAndSet(false, true)) {
+            for (int i = 0; i < palette.length; i++) {
+                palette[i] = BlockStatePalette.acquire(palette[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes the palette references taken by retainStates, once
+     * Called when the form is replaced by a new freeze or the intersection is removed
+     */
+    public void releaseStates() {
+        if (retained.compareAndSet(true, false)) {
+            for (BlockStateData state : palette) {
+                BlockStatePalette.release(state);
+            }
+        }
+    }
+
+    /**
+     * Gets the role bit of the road lamps of a phase
+     */
+    public static int roleOf(LightPhase phase) {
+        return 1 << phase.ordinal();
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Sides
+
+    public int getSideCount() {
+        return sideDirections.length;
+    }
+
+    public String getSideDirection(int side) {
+        return sideDirections[side];
+    }
+
+    public TrafficLightSide.DirectionGroup getSideGroup(int side) {
+        return sideGroups[side];
+    }
+
+    public boolean hasPedestrianLights(int side) {
+        return sidePedestrianLights[side];
+    }
+
+    /**
+     * Gets the first lamp slot of a side, slots of side s are [getSideSlotStart(s), getSideSlotStart(s + 1))
+     */
+    public int getSideSlotStart(int side) {
+        return sideSlotStart[side];
+    }
+
+    // Blocks
+
+    public int getBlockCount() {
+        return blockX.length;
+    }
+
+    public int getBlockWorld(int block) {
+        return blockWorld[block];
+    }
+
+    public int getBlockX(int block) {
+        return blockX[block];
+    }
+
+    public int getBlockY(int block) {
+        return blockY[block];
+    }
+
+    public int getBlockZ(int block) {
+        return blockZ[block];
+    }
+
+    /**
+     * Gets the roles a block plays, as ROLE_* bits
+     */
+    public int getBlockRoles(int block) {
+        return blockRoles[block];
+    }
+
+    /**
+     * Creates the position of a block
+     */
+    public BlockPosition getPosition(int block) {
+        return new BlockPosition(BlockPosition.worldName(blockWorld[block]), blockX[block], blockY[block], blockZ[block]);
+    }
+
+    /**
+     * Creates the positions of all blocks, in block index order
+     */
+    public List<BlockPosition> getPositions() {
+        List<BlockPosition> positions = new ArrayList<>(blockX.length);
+        for (int i = 0; i < blockX.length; i++) {
+            positions.add(getPosition(i));
+        }
+        return positions;
+    }
+
+    /**
+     * Gets the block the partition of this intersection is anchored on: the first red lamp of the first side
+     * @return The block index, or -1 if there are no blocks
+     */
+    public int getAnchorBlock() {
+        if (sideDirections.length > 0) {
+            for (int slot = sideSlotStart[0]; slot < sideSlotStart[1]; slot++) {
+                if (slotRole[slot] == ROLE_RED) {
+                    return slotBlock[slot];
+                }
+            }
+        }
+        return blockX.length > 0 ? 0 : -1;
+    }
+
+    // Lamp slots
+
+    public int getSlotCount() {
+        return slotBlock.length;
+    }
+
+    public int getSlotBlock(int slot) {
+        return slotBlock[slot];
+    }
+
+    public int getSlotSide(int slot) {
+        return slotSide[slot];
+    }
+
+    /**
+     * Gets the single ROLE_* bit of a slot
+     */
+    public int getSlotRole(int slot) {
+        return slotRole[slot];
+    }
+
+    /**
+     * Gets the palette index of the state captured for a slot
+     * @return The index, or -1 if none was captured
+     */
+    public int getSlotState(int slot) {
+        return slotState[slot];
+    }
+
+    // Palette
+
+    public int getPaletteSize() {
+        return palette.length;
+    }
+
+    /**
+     * Gets a block state by palette index (NEUTRAL is the neutral state)
+     * @return The state, or null for -1 or a missing neutral state
+     */
+    public BlockStateData getState(int index) {
+        return index >= 0 ? palette[index] : null;
+    }
+
+    public BlockStateData getNeutralState() {
+        return palette[NEUTRAL];
+    }
+
+    /**
+     * Gets every distinct block state, compared by identity
+     */
+    public Set<BlockStateData> getStates() {
+        Set<BlockStateData> states = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (BlockStateData state : palette) {
+            if (state != null) {
+                states.add(state);
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Accumulates the arrays while walking the mutable model
+     */
+    private static final class Builder {
+        private final List<String> sideDirections = new ArrayList<>();
+        private final List<TrafficLightSide.DirectionGroup> sideGroups = new ArrayList<>();
+        private boolean[] sidePedestrianLights = new boolean[4];
+        private int[] sideSlotStart = new int[5];
+
+        private final Map<BlockPosition, Integer> blocks = new LinkedHashMap<>();
+        private int[] blockRoles = new int[16];
+
+        private int slotCount;
+        private int[] slotBlock = new int[16];
+        private int[] slotSide = new int[16];
+        private int[] slotRole = new int[16];
+        private int[] slotState = new int[16];
+
+        // Canonical states or candidates, deduplicated by equality
+        private final List<BlockStateData> palette = new ArrayList<>();
+        private final Map<BlockStateData, Integer> paletteIndexes = new HashMap<>();
+
+        private Builder(BlockStateData neutralState) {
+            // The neutral state always takes index 0, even when missing
+            neutralState = BlockStatePalette.intern(neutralState);
+            palette.add(neutralState);
+            if (neutralState != null) {
+                paletteIndexes.put(neutralState, NEUTRAL);
+            }
+        }
+
+        private void startSide(TrafficLightSide side) {
+            int index = sideDirections.size();
+            sideDirections.add(side.getDirection());
+            sideGroups.add(side.getDirectionGroup());
+            if (index + 1 >= sideSlotStart.length) {
+                sidePedestrianLights = Arrays.copyOf(sidePedestrianLights, sidePedestrianLights.length * 2);
+                sideSlotStart = Arrays.copyOf(sideSlotStart, sideSlotStart.length * 2);
+            }
+            sidePedestrianLights[index] = side.hasPedestrianLights();
+            sideSlotStart[index] = slotCount;
+            sideSlotStart[index + 1] = slotCount;
+        }
+
+        private void addSlot(TrafficLightSide side, BlockPosition pos, int role) {
+            Integer block = blocks.get(pos);
+            if (block == null) {
+                block = blocks.size();
+                blocks.put(pos, block);
+                if (block >= blockRoles.length) {
+                    blockRoles = Arrays.copyOf(blockRoles, blockRoles.length * 2);
+                }
+            }
+            blockRoles[block] |= role;
+
+            if (slotCount >= slotBlock.length) {
+                int capacity = slotBlock.length * 2;
+                slotBlock = Arrays.copyOf(slotBlock, capacity);
+                slotSide = Arrays.copyOf(slotSide, capacity);
+                slotRole = Arrays.copyOf(slotRole, capacity);
+                slotState = Arrays.copyOf(slotState, capacity);
+            }
+            slotBlock[slotCount] = block;
+            slotSide[slotCount] = sideDirections.size() - 1;
+            slotRole[slotCount] = role;
+            slotState[slotCount] = paletteIndex(side.getBlockState(pos));
+            slotCount++;
+            sideSlotStart[sideDirections.size()] = slotCount;
+        }
+
+        private int paletteIndex(BlockStateData state) {
+            if (state == null) {
+                return -1;
+            }
+
+            // Equal states captured separately collapse to the canonical instance
+            state = BlockStatePalette.intern(state);
+            Integer index = paletteIndexes.get(state);
+            if (index == null) {
+                index = palette.size();
+                paletteIndexes.put(state, index);
+                palette.add(state);
+            }
+            return index;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ctos.trafficlight.model;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Represents a complete traffic light intersection with all its sides
@@ -13,6 +14,8 @@ public class Intersection {
     private BlockStateData neutralState; // The "off" state block
     private int currentPhaseIndex;
     private long lastPhaseChangeTime;
+    private transient volatile FrozenIntersection frozen; // Last frozen form, read by the animator and indexes
+    private transient volatile Consumer<Intersection> renameListener; // Set by the registry to re-index names
 
     public Intersection(UUID id, String name) {
         this.id = id;
@@ -61,6 +64,39 @@ public class Intersection {
         return true;
     }
 
+    /**
+     * Freezes the current content into the compact form the animator and indexes read
+     * Called when the intersection is registered, edits made afterwards are only picked up by the next freeze
+     * Synchronized so concurrent freezes never release the states of a form another caller just got
+     */
+    public synchronized FrozenIntersection freeze() {
+        FrozenIntersection result = FrozenIntersection.of(this);
+        result.retainStates();
+
+        FrozenIntersection previous = frozen;
+        frozen = result;
+        if (previous != null) {
+            previous.releaseStates();
+        }
+        return result;
+    }
+
+    /**
+     * Gets the last frozen form, freezing now if it never was
+     */
+    public FrozenIntersection getFrozen() {
+        FrozenIntersection result = frozen;
+        if (result != null) {
+            return result;
+        }
+
+        // Re-checked under the lock, racing readers must not each freeze a form
+        synchronized (this) {
+            result = frozen;
+            return result != null ? result : freeze();
+        }
+    }
+
     /**
      * Gets all block positions managed by this intersection
      */
@@ -187,6 +223,17 @@ public class Intersection {
 
     public void setName(String name) {
         this.name = name;
+        Consumer<Intersection> listener = renameListener;
+        if (listener != null) {
+            listener.accept(this);
+        }
+    }
+
+    /**
+     * Sets the callback notified after every rename, or null to stop notifications
+     */
+    public void setRenameListener(Consumer<Intersection> renameListener) {
+        this.renameListener = renameListener;
     }
 
     public List<TrafficLightSide> getSides() {
@@ -0,0 +1,439 @@
+package com.ctos.trafficlight.service;
+
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.model.FrozenIntersection;
+import com.ctos.trafficlight.model.Intersection;
+import com.ctos.util.LongObjectMap;
+import com.ctos.util.Metrics;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Central registry and management of all intersections
+ * Provides fast lookups by ID, block position, proximity or name
+ * Backed by concurrent maps, lookups come from region threads on Folia
+ * The block index is an array of per-world tables keyed by packed coordinates, indexed by world id.
+ * Edits copy the tables they touch under the index lock and publish a new array, so block lookups
+ * never lock.
+ */
+public class IntersectionManager {
+    private static final Logger LOGGER = Logger.getLogger("ctOS");
+
+    private final Map<UUID, Intersection> intersections;
+    // world id -> packed position -> intersection id (null = no managed block in the world), never edited in place
+    private volatile LongObjectMap<UUID>[] blockTables;
+    // Serializes edits of the block index
+    private final Object indexLock;
+    // intersection id -> frozen form its blocks were indexed with (guarded by indexLock)
+    private final Map<UUID, FrozenIntersection> indexedForms;
+    private final ManagedBlockFilter blockFilter;
+    private final IntersectionSpatialIndex spatialIndex;
+    private final IntersectionNameIndex nameIndex;
+    private final Consumer<Intersection> renameListener;
+
+    public IntersectionManager() {
+        this.intersections = new ConcurrentHashMap<>();
+        this.blockTables = newTables(0);
+        this.indexLock = new Object();
+        this.indexedForms = new HashMap<>();
+        this.blockFilter = new ManagedBlockFilter();
+        this.spatialIndex = new IntersectionSpatialIndex();
+        this.nameIndex = new IntersectionNameIndex();
+        this.renameListener = renamed -> {
+            // Ignore renames of an instance that was replaced under the same id
+            if (intersections.get(renamed.getId()) == renamed) {
+                nameIndex.put(renamed.getId(), renamed.getName());
+            }
+        };
+    }
+
+    /**
+     * Registers an intersection
+     */
+    public void registerIntersection(Intersection intersection) {
+        if (intersection == null) {
+            throw new IllegalArgumentException("Intersection cannot be null");
+        }
+
+        intersections.put(intersection.getId(), intersection);
+        updateBlockIndex(intersection);
+        indexName(intersection);
+
+        LOGGER.info("Registered intersection: " + intersection.getName() + " (" + intersection.getId() + ")");
+    }
+
+    /**
+     * Registers many intersections at once (used on startup)
+     * Freezes them all, then builds the block index in a single pass with tables sized up front
+     */
+    public void registerAll(Collection<Intersection> toRegister) {
+        long start = System.nanoTime();
+        List<FrozenIntersection> forms = new ArrayList<>(toRegister.size());
+        Map<Integer, Integer> blocksPerWorld = new HashMap<>();
+        for (Intersection intersection : toRegister) {
+            if (intersection == null) {
+                throw new IllegalArgumentException("Intersection cannot be null");
+            }
+
+            FrozenIntersection frozen = intersection.freeze();
+            forms.add(frozen);
+            for (int i = 0; i < frozen.getBlockCount(); i++) {
+                blocksPerWorld.merge(frozen.getBlockWorld(i), 1, Integer::sum);
+            }
+        }
+
+        synchronized (indexLock) {
+            TableEdit edit = new TableEdit();
+            blocksPerWorld.forEach((world, count) -> {
+                LongObjectMap<UUID> blocks = edit.edit(world);
+                blocks.ensureCapacity(blocks.size() + count);
+            });
+
+            for (FrozenIntersection frozen : forms) {
+                unindexBlocks(edit, indexedForms.put(frozen.getId(), frozen));
+                indexBlocks(edit, frozen);
+            }
+            edit.publish();
+        }
+
+        for (Intersection intersection : toRegister) {
+            intersections.put(intersection.getId(), intersection);
+            indexName(intersection);
+        }
+        for (FrozenIntersection frozen : forms) {
+            spatialIndex.add(frozen);
+        }
+        Metrics.INDEX_UPDATE.record(System.nanoTime() - start);
+
+        LOGGER.info("Registered " + forms.size() + " intersections");
+    }
+
+    /**
+     * Removes an intersection by ID
+     */
+    public void removeIntersection(UUID id) {
+        Intersection intersection = intersections.remove(id);
+
+        if (intersection != null) {
+            // Remove block mappings
+            synchronized (indexLock) {
+                TableEdit edit = new TableEdit();
+                unindexBlocks(edit, indexedForms.remove(id));
+                edit.publish();
+            }
+
+            spatialIndex.remove(id);
+            nameIndex.remove(id);
+            intersection.setRenameListener(null);
+
+            // Unreferenced palette states drop their render caches
+            intersection.getFrozen().releaseStates();
+
+            LOGGER.info("Removed intersection: " + intersection.getName() + " (" + id + ")");
+        }
+    }
+
+    /**
+     * Gets an intersection by ID
+     */
+    public Optional<Intersection> getIntersection(UUID id) {
+        return Optional.ofNullable(intersections.get(id));
+    }
+
+    /**
+     * Gets an intersection by a block position it contains
+     */
+    public Optional<Intersection> getIntersectionByBlock(BlockPosition position) {
+        UUID id = getIntersectionId(position.getWorldId(), position.getX(), position.getY(), position.getZ());
+        if (id == null) {
+            return Optional.empty();
+        }
+        return getIntersection(id);
+    }
+
+    /**
+     * Finds the intersection with a block closest to a point
+     * @param maxDistance Ignore intersections farther than this many blocks
+     */
+    public Optional<Intersection> findNearest(String worldName, double x, double y, double z, double maxDistance) {
+        List<Intersection> nearest = findNearest(worldName, x, y, z, maxDistance, 1);
+        return nearest.isEmpty() ? Optional.empty() : Optional.of(nearest.getFirst());
+    }
+
+    /**
+     * Finds the k intersections closest to a point, nearest first
+     * @param maxDistance Ignore intersections farther than this many blocks
+     */
+    public List<Intersection> findNearest(String worldName, double x, double y, double z, double maxDistance, int k) {
+        // Looking up must not intern the name of a world nothing was ever placed in
+        int worldId = BlockPosition.findWorldId(worldName);
+        if (worldId < 0) {
+            return Collections.emptyList();
+        }
+        return resolve(spatialIndex.findNearest(worldId, x, y, z, maxDistance, k));
+    }
+
+    /**
+     * Finds the intersections with a block within a radius of a point, nearest first
+     */
+    public List<Intersection> findWithinRadius(String worldName, double x, double y, double z, double radius) {
+        int worldId = BlockPosition.findWorldId(worldName);
+        if (worldId < 0) {
+            return Collections.emptyList();
+        }
+        return resolve(spatialIndex.findWithinRadius(worldId, x, y, z, radius));
+    }
+
+    /**
+     * Indexes the name of a registered intersection and follows its renames
+     */
+    private void indexName(Intersection intersection) {
+        intersection.setRenameListener(renameListener);
+        nameIndex.put(intersection.getId(), intersection.getName());
+    }
+
+    /**
+     * Maps spatial matches back to registered intersections, keeping their order
+     */
+    private List<Intersection> resolve(List<IntersectionSpatialIndex.Match> matches) {
+        List<UUID> ids = new ArrayList<>(matches.size());
+        for (IntersectionSpatialIndex.Match match : matches) {
+            ids.add(match.getIntersectionId());
+        }
+        return resolveIds(ids);
+    }
+
+    /**
+     * Maps ids back to registered intersections, keeping their order
+     */
+    private List<Intersection> resolveIds(List<UUID> ids) {
+        List<Intersection> results = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            Intersection intersection = intersections.get(id);
+            if (intersection != null) {
+                results.add(intersection);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets all registered intersections
+     */
+    public Collection<Intersection> getAllIntersections() {
+        return new ArrayList<>(intersections.values());
+    }
+
+    /**
+     * Gets the number of registered intersections
+     */
+    public int getIntersectionCount() {
+        return intersections.size();
+    }
+
+    /**
+     * Gets the number of blocks in the block index
+     */
+    public int getManagedBlockCount() {
+        int count = 0;
+        for (LongObjectMap<UUID> blocks : blockTables) {
+            if (blocks != null) {
+                count += blocks.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if an intersection with the given ID exists
+     */
+    public boolean hasIntersection(UUID id) {
+        return intersections.containsKey(id);
+    }
+
+    /**
+     * Checks if a block position is part of any intersection
+     */
+    public boolean isBlockManaged(BlockPosition position) {
+        return getIntersectionId(position.getWorldId(), position.getX(), position.getY(), position.getZ()) != null;
+    }
+
+    /**
+     * Checks if a block is part of any intersection, rejecting unmanaged chunks without a map lookup
+     * @param worldId See BlockPosition.worldId
+     */
+    public boolean isBlockManaged(int worldId, int x, int y, int z) {
+        Metrics.INDEX_LOOKUPS.increment();
+        if (!blockFilter.mightContain(worldId, x, z)) {
+            Metrics.INDEX_PREFILTER_REJECTS.increment();
+            return false;
+        }
+        return getIntersectionId(worldId, x, y, z) != null;
+    }
+
+    /**
+     * Gets the id of the intersection containing a block, without allocating a BlockPosition
+     * Lock-free, reads the last published tables
+     * @param worldId See BlockPosition.worldId
+     * @return The intersection id, or null if the block is not managed
+     */
+    public UUID getIntersectionId(int worldId, int x, int y, int z) {
+        LongObjectMap<UUID>[] tables = blockTables;
+        if (worldId < 0 || worldId >= tables.length) {
+            return null;
+        }
+        LongObjectMap<UUID> blocks = tables[worldId];
+        return blocks != null ? blocks.get(BlockPosition.pack(x, y, z)) : null;
+    }
+
+    /**
+     * Freezes an intersection and updates the block position index from its frozen form
+     * This should be called whenever an intersection's blocks change
+     */
+    public void updateBlockIndex(Intersection intersection) {
+        long start = System.nanoTime();
+        FrozenIntersection frozen = intersection.freeze();
+        synchronized (indexLock) {
+            // Only the tables of this intersection's worlds are copied
+            TableEdit edit = new TableEdit();
+            unindexBlocks(edit, indexedForms.put(frozen.getId(), frozen));
+            indexBlocks(edit, frozen);
+            edit.publish();
+        }
+        spatialIndex.add(frozen);
+        Metrics.INDEX_UPDATE.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Maps every block of a frozen intersection to it (caller holds the index lock)
+     */
+    private void indexBlocks(TableEdit edit, FrozenIntersection frozen) {
+        UUID id = frozen.getId();
+        LongObjectMap<UUID> blocks = null;
+        int blocksWorld = -1;
+        for (int i = 0; i < frozen.getBlockCount(); i++) {
+            // Blocks of an intersection are almost always in one world, skip the map lookup for the rest
+            if (blocks == null || frozen.getBlockWorld(i) != blocksWorld) {
+                blocksWorld = frozen.getBlockWorld(i);
+                blocks = edit.edit(blocksWorld);
+            }
+            if (blocks.put(BlockPosition.pack(frozen.getBlockX(i), frozen.getBlockY(i), frozen.getBlockZ(i)), id) == null) {
+                blockFilter.add(blocksWorld, frozen.getBlockX(i), frozen.getBlockZ(i));
+            }
+        }
+    }
+
+    /**
+     * Removes the blocks a frozen intersection was indexed with, unless another intersection claimed them since
+     * (caller holds the index lock)
+     */
+    private void unindexBlocks(TableEdit edit, FrozenIntersection frozen) {
+        if (frozen == null) {
+            return;
+        }
+
+        UUID id = frozen.getId();
+        for (int i = 0; i < frozen.getBlockCount(); i++) {
+            LongObjectMap<UUID> blocks = edit.get(frozen.getBlockWorld(i));
+            if (blocks == null) {
+                continue;
+            }
+
+            long key = BlockPosition.pack(frozen.getBlockX(i), frozen.getBlockY(i), frozen.getBlockZ(i));
+            if (id.equals(blocks.get(key))) {
+                edit.edit(frozen.getBlockWorld(i)).remove(key);
+                blockFilter.remove(frozen.getBlockWorld(i), frozen.getBlockX(i), frozen.getBlockZ(i));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static LongObjectMap<UUID>[] newTables(int length) {
+        return (LongObjectMap<UUID>[]) new LongObjectMap<?>[length];
+    }
+
+    /**
+     * Copy of the block tables being edited under the index lock
+     * A world's table is copied the first time the edit writes to it, then published with the rest
+     */
+    private final class TableEdit {
+        private LongObjectMap<UUID>[] tables = blockTables.clone();
+        private final BitSet copied = new BitSet();
+
+        /**
+         * Gets a world's table for reading
+         */
+        private LongObjectMap<UUID> get(int worldId) {
+            return worldId < tables.length ? tables[worldId] : null;
+        }
+
+        /**
+         * Gets a world's table for writing, copying the published one first
+         */
+        private LongObjectMap<UUID> edit(int worldId) {
+            if (worldId >= tables.length) {
+                tables = Arrays.copyOf(tables, worldId + 1);
+            }
+            if (!copied.get(worldId)) {
+                LongObjectMap<UUID> published = tables[worldId];
+                tables[worldId] = published != null ? published.copy() : new LongObjectMap<>();
+                copied.set(worldId);
+            }
+            return tables[worldId];
+        }
+
+        private void publish() {
+            blockTables = tables;
+        }
+    }
+
+    /**
+     * Clears all intersections from memory
+     */
+    public void clear() {
+        for (Intersection intersection : intersections.values()) {
+            intersection.getFrozen().releaseStates();
+            intersection.setRenameListener(null);
+        }
+        intersections.clear();
+        nameIndex.clear();
+        synchronized (indexLock) {
+            blockTables = newTables(0);
+            indexedForms.clear();
+            blockFilter.clear();
+        }
+        spatialIndex.clear();
+        LOGGER.info("Cleared all intersections from memory");
+    }
+
+    /**
+     * Gets intersections by name (case-insensitive partial match)
+     */
+    public List<Intersection> findIntersectionsByName(String name) {
+        return findIntersectionsByName(name, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets at most limit intersections by name (case-insensitive partial match)
+     */
+    public List<Intersection> findIntersectionsByName(String name, int limit) {
+        return resolveIds(nameIndex.findBySubstring(name, limit));
+    }
+
+    /**
+     * Gets at most limit intersections whose name starts with a prefix (case-insensitive), sorted by name
+     */
+    public List<Intersection> findIntersectionsByNamePrefix(String prefix, int limit) {
+        return resolveIds(nameIndex.findByPrefix(prefix, limit));
+    }
+
+    /**
+     * Gets the intersection names and ids starting with what was typed so far
+     */
+    public List<String> suggestIdentifiers(String typed, int limit) {
+        return nameIndex.suggest(typed, limit);
+    }
+}
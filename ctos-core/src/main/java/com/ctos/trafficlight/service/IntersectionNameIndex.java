@@ -0,0 +1,209 @@
+package com.ctos.trafficlight.service;
+
+import java.util.*;
+
+/**
+ * Index of intersection names for prefix and substring lookups
+ * Names are normalized to lower case once when indexed. Prefix queries walk a sorted map from the
+ * prefix on; substring queries look up the n-gram postings of the query (grams of up to 3 characters),
+ * give up as soon as one is missing, and verify the names in the smallest posting with contains().
+ * Ids are indexed by prefix too, for command suggestions.
+ * Thread-safe: suggestions are computed off the main thread
+ */
+public class IntersectionNameIndex {
+    private static final int MAX_GRAM = 3;
+
+    // normalized name -> ids with that name
+    private final TreeMap<String, Set<UUID>> byName;
+    // n-gram -> ids whose normalized name contains it
+    private final Map<String, Set<UUID>> byGram;
+    // id string -> id
+    private final TreeMap<String, UUID> byIdString;
+    // id -> name it is indexed under (original case) and its normalized form
+    private final Map<UUID, String> names;
+    private final Map<UUID, String> normalizedNames;
+
+    public IntersectionNameIndex() {
+        this.byName = new TreeMap<>();
+        this.byGram = new HashMap<>();
+        this.byIdString = new TreeMap<>();
+        this.names = new HashMap<>();
+        this.normalizedNames = new HashMap<>();
+    }
+
+    /**
+     * Normalizes a name or query for comparison
+     */
+    public static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Indexes an intersection under a name, replacing its previous name
+     */
+    public synchronized void put(UUID id, String name) {
+        String previous = names.get(id);
+        if (previous != null && previous.equals(name)) {
+            return;
+        }
+
+        remove(id);
+        if (name == null) {
+            return;
+        }
+
+        String normalized = normalize(name);
+        names.put(id, name);
+        normalizedNames.put(id, normalized);
+        byName.computeIfAbsent(normalized, n -> new HashSet<>()).add(id);
+        for (String gram : grams(normalized)) {
+            byGram.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+        }
+        byIdString.put(id.toString(), id);
+    }
+
+    /**
+     * Removes an intersection from the index
+     */
+    public synchronized void remove(UUID id) {
+        byIdString.remove(id.toString());
+        names.remove(id);
+        String normalized = normalizedNames.remove(id);
+        if (normalized == null) {
+            return;
+        }
+
+        removePosting(byName, normalized, id);
+        for (String gram : grams(normalized)) {
+            removePosting(byGram, gram, id);
+        }
+    }
+
+    /**
+     * Finds intersections whose name starts with a prefix (case-insensitive), sorted by name
+     * @param limit Maximum number of results
+     */
+    public synchronized List<UUID> findByPrefix(String prefix, int limit) {
+        List<UUID> results = new ArrayList<>();
+        String normalized = normalize(prefix);
+        for (Map.Entry<String, Set<UUID>> entry : byName.tailMap(normalized, true).entrySet()) {
+            if (!entry.getKey().startsWith(normalized)) {
+                break;
+            }
+            for (UUID id : entry.getValue()) {
+                if (results.size() >= limit) {
+                    return results;
+                }
+                results.add(id);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Finds intersections whose name contains a query (case-insensitive)
+     * @param limit Maximum number of results
+     */
+    public synchronized List<UUID> findBySubstring(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            List<UUID> all = new ArrayList<>();
+            for (UUID id : names.keySet()) {
+                if (all.size() >= limit) {
+                    break;
+                }
+                all.add(id);
+            }
+            return all;
+        }
+
+        // Start from the rarest gram of the query, every match must contain all of them
+        Set<UUID> candidates = null;
+        for (String gram : queryGrams(normalized)) {
+            Set<UUID> posting = byGram.get(gram);
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            if (candidates == null || posting.size() < candidates.size()) {
+                candidates = posting;
+            }
+        }
+
+        List<UUID> results = new ArrayList<>();
+        for (UUID id : candidates) {
+            if (results.size() >= limit) {
+                break;
+            }
+            if (normalizedNames.get(id).contains(normalized)) {
+                results.add(id);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets the names and ids starting with what was typed so far, for command suggestions
+     * @param limit Maximum number of suggestions
+     */
+    public synchronized List<String> suggest(String typed, int limit) {
+        List<String> suggestions = new ArrayList<>();
+        for (UUID id : findByPrefix(typed, limit)) {
+            suggestions.add(names.get(id));
+        }
+
+        String normalized = normalize(typed);
+        for (Map.Entry<String, UUID> entry : byIdString.tailMap(normalized, true).entrySet()) {
+            if (suggestions.size() >= limit || !entry.getKey().startsWith(normalized)) {
+                break;
+            }
+            suggestions.add(entry.getKey());
+        }
+        return suggestions;
+    }
+
+    /**
+     * Clears the index
+     */
+    public synchronized void clear() {
+        byName.clear();
+        byGram.clear();
+        byIdString.clear();
+        names.clear();
+        normalizedNames.clear();
+    }
+
+    /**
+     * Gets every distinct gram of 1 to MAX_GRAM characters of a normalized name
+     */
+    private static Set<String> grams(String normalized) {
+        Set<String> grams = new HashSet<>();
+        for (int length = 1; length <= MAX_GRAM; length++) {
+            for (int i = 0; i + length <= normalized.length(); i++) {
+                grams.add(normalized.substring(i, i + length));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Gets the grams a query is looked up with: its longest indexed grams
+     */
+    private static Set<String> queryGrams(String normalized) {
+        int length = Math.min(MAX_GRAM, normalized.length());
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + length <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + length));
+        }
+        return grams;
+    }
+
+    private static <K> void removePosting(Map<K, Set<UUID>> index, K key, UUID id) {
+        Set<UUID> posting = index.get(key);
+        if (posting != null) {
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
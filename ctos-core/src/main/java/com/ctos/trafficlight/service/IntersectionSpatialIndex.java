@@ -0,0 +1,255 @@
+package com.ctos.trafficlight.service;
+
+import com.ctos.trafficlight.engine.ChunkBlockIndex;
+import com.ctos.trafficlight.model.FrozenIntersection;
+import com.ctos.util.LongObjectMap;
+
+import java.util.*;
+
+/**
+ * Per-world chunk grid of intersections for radius and nearest queries
+ * Every intersection is listed in each chunk cell holding one of its blocks, so a query only visits the
+ * cells around the query point, ring by ring, and stops once no closer cell can exist. A long or
+ * diagonal intersection only fills the cells its lamps are in, not its whole bounding box.
+ * Distances are measured to the nearest block of an intersection, compared squared.
+ * Thread-safe: queries come from command threads while registration runs on the main or global thread
+ */
+public class IntersectionSpatialIndex {
+    private static final int CELL_SHIFT = 4; // One cell per chunk
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    // world id -> chunk key -> intersections with a block in the cell
+    private final Map<Integer, LongObjectMap<List<FrozenIntersection>>> cells;
+    // world id -> {min x, min z, max x, max z} of the cells ever filled since the world was last empty
+    private final Map<Integer, int[]> extents;
+    // intersection id -> world id -> chunk keys of the cells it was indexed in
+    private final Map<UUID, Map<Integer, Set<Long>>> indexed;
+
+    public IntersectionSpatialIndex() {
+        this.cells = new HashMap<>();
+        this.extents = new HashMap<>();
+        this.indexed = new HashMap<>();
+    }
+
+    /**
+     * Distance from a query point to an intersection
+     */
+    public static final class Match {
+        private final UUID intersectionId;
+        private final double distance;
+
+        private Match(UUID intersectionId, double distance) {
+            this.intersectionId = intersectionId;
+            this.distance = distance;
+        }
+
+        public UUID getIntersectionId() {
+            return intersectionId;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+    }
+
+    /**
+     * Indexes a frozen intersection, replacing any previous entry for it
+     */
+    public synchronized void add(FrozenIntersection intersection) {
+        remove(intersection.getId());
+        if (intersection.getBlockCount() == 0) {
+            return;
+        }
+
+        // Intersections normally sit in a single world, a stray block in another world gets its own cells
+        Map<Integer, Set<Long>> blockCells = new HashMap<>();
+        for (int i = 0; i < intersection.getBlockCount(); i++) {
+            blockCells.computeIfAbsent(intersection.getBlockWorld(i), w -> new HashSet<>())
+                    .add(ChunkBlockIndex.chunkKey(intersection.getBlockX(i) >> CELL_SHIFT,
+                            intersection.getBlockZ(i) >> CELL_SHIFT));
+        }
+
+        for (Map.Entry<Integer, Set<Long>> entry : blockCells.entrySet()) {
+            LongObjectMap<List<FrozenIntersection>> worldCells =
+                    cells.computeIfAbsent(entry.getKey(), w -> new LongObjectMap<>());
+            int[] extent = extents.computeIfAbsent(entry.getKey(),
+                    w -> new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE});
+            for (long key : entry.getValue()) {
+                int cellX = (int) (key >> 32);
+                int cellZ = (int) key;
+                extent[0] = Math.min(extent[0], cellX);
+                extent[1] = Math.min(extent[1], cellZ);
+                extent[2] = Math.max(extent[2], cellX);
+                extent[3] = Math.max(extent[3], cellZ);
+
+                List<FrozenIntersection> list = worldCells.get(key);
+                if (list == null) {
+                    list = new ArrayList<>(1);
+                    worldCells.put(key, list);
+                }
+                list.add(intersection);
+            }
+        }
+        indexed.put(intersection.getId(), blockCells);
+    }
+
+    /**
+     * Removes an intersection from the grid
+     */
+    public synchronized void remove(UUID intersectionId) {
+        Map<Integer, Set<Long>> blockCells = indexed.remove(intersectionId);
+        if (blockCells == null) {
+            return;
+        }
+
+        for (Map.Entry<Integer, Set<Long>> entry : blockCells.entrySet()) {
+            LongObjectMap<List<FrozenIntersection>> worldCells = cells.get(entry.getKey());
+            if (worldCells == null) {
+                continue;
+            }
+
+            for (long key : entry.getValue()) {
+                List<FrozenIntersection> list = worldCells.get(key);
+                if (list == null) {
+                    continue;
+                }
+                list.removeIf(intersection -> intersection.getId().equals(intersectionId));
+                if (list.isEmpty()) {
+                    worldCells.remove(key);
+                }
+            }
+            if (worldCells.isEmpty()) {
+                cells.remove(entry.getKey());
+                extents.remove(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Finds the intersections with a block within a radius of a point
+     * @return Matches sorted by distance
+     */
+    public List<Match> findWithinRadius(int worldId, double x, double y, double z, double radius) {
+        return findNearest(worldId, x, y, z, radius, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the k intersections closest to a point
+     * @param maxDistance Ignore intersections farther than this
+     * @return Up to k matches sorted by distance
+     */
+    public synchronized List<Match> findNearest(int worldId, double x, double y, double z, double maxDistance, int k) {
+        LongObjectMap<List<FrozenIntersection>> worldCells = cells.get(worldId);
+        if (worldCells == null || k <= 0) {
+            return Collections.emptyList();
+        }
+
+        int centerX = (int) Math.floor(x) >> CELL_SHIFT;
+        int centerZ = (int) Math.floor(z) >> CELL_SHIFT;
+        int[] extent = extents.get(worldId);
+        // Rings closer than the filled cells are empty, rings past them too
+        int firstRing = (int) Math.max(Math.max(0, Math.max((long) extent[0] - centerX, (long) centerX - extent[2])),
+                Math.max((long) extent[1] - centerZ, (long) centerZ - extent[3]));
+        int maxRing = maxRing(extent, centerX, centerZ, maxDistance);
+        double maxDistanceSquared = maxDistance * maxDistance;
+
+        // Current k best, farthest first
+        PriorityQueue<Match> best = new PriorityQueue<>(
+                Comparator.comparingDouble((Match match) -> match.distance).reversed());
+        Set<UUID> seen = new HashSet<>();
+
+        for (int ring = firstRing; ring <= maxRing; ring++) {
+            // Nothing in this ring or beyond is closer than the gap between the center cell and the ring
+            double ringGap = Math.max(0, ring - 1) * (double) CELL_SIZE;
+            double ringGapSquared = ringGap * ringGap;
+            if (ringGapSquared > maxDistanceSquared || (best.size() >= k && ringGapSquared > best.peek().distance)) {
+                break;
+            }
+
+            // Only the part of the ring inside the filled cells
+            long fromX = Math.max((long) centerX - ring, extent[0]);
+            long toX = Math.min((long) centerX + ring, extent[2]);
+            long fromZ = Math.max((long) centerZ - ring, extent[1]);
+            long toZ = Math.min((long) centerZ + ring, extent[3]);
+            for (long cellX = fromX; cellX <= toX; cellX++) {
+                boolean edgeColumn = Math.abs(cellX - centerX) == ring;
+                for (long cellZ = fromZ; cellZ <= toZ; cellZ++) {
+                    if (!edgeColumn && Math.abs(cellZ - centerZ) != ring) {
+                        // Inner cells were visited by previous rings, jump to the far edge
+                        cellZ = (long) centerZ + ring - 1;
+                        continue;
+                    }
+
+                    List<FrozenIntersection> list = worldCells.get(ChunkBlockIndex.chunkKey((int) cellX, (int) cellZ));
+                    if (list == null) {
+                        continue;
+                    }
+
+                    for (FrozenIntersection intersection : list) {
+                        if (!seen.add(intersection.getId())) {
+                            continue;
+                        }
+
+                        double distanceSquared = distanceSquared(intersection, worldId, x, y, z);
+                        if (distanceSquared > maxDistanceSquared) {
+                            continue;
+                        }
+                        if (best.size() < k) {
+                            best.add(new Match(intersection.getId(), distanceSquared));
+                        } else if (distanceSquared < best.peek().distance) {
+                            best.poll();
+                            best.add(new Match(intersection.getId(), distanceSquared));
+                        }
+                    }
+                }
+            }
+        }
+
+        // Squared while searching, real distances once done
+        List<Match> matches = new ArrayList<>(best.size());
+        for (Match match : best) {
+            matches.add(new Match(match.intersectionId, Math.sqrt(match.distance)));
+        }
+        matches.sort(Comparator.comparingDouble(Match::getDistance));
+        return matches;
+    }
+
+    /**
+     * Gets the last ring a query needs to visit: the one reaching maxDistance, but never past the farthest
+     * filled cell of the world, so huge or infinite distances do not overflow or scan empty rings
+     */
+    private static int maxRing(int[] extent, int centerX, int centerZ, double maxDistance) {
+        long toExtent = Math.max(
+                Math.max(Math.abs((long) extent[0] - centerX), Math.abs((long) extent[2] - centerX)),
+                Math.max(Math.abs((long) extent[1] - centerZ), Math.abs((long) extent[3] - centerZ)));
+        double toDistance = Math.ceil(maxDistance / CELL_SIZE) + 1;
+        return (int) Math.min(toExtent, Math.max(0, toDistance));
+    }
+
+    /**
+     * Clears the grid
+     */
+    public synchronized void clear() {
+        cells.clear();
+        extents.clear();
+        indexed.clear();
+    }
+
+    /**
+     * Gets the squared distance from a point to the nearest block of an intersection in a world
+     */
+    private static double distanceSquared(FrozenIntersection intersection, int worldId, double x, double y, double z) {
+        double nearest = Double.MAX_VALUE;
+        for (int i = 0; i < intersection.getBlockCount(); i++) {
+            if (intersection.getBlockWorld(i) != worldId) {
+                continue;
+            }
+
+            double dx = intersection.getBlockX(i) - x;
+            double dy = intersection.getBlockY(i) - y;
+            double dz = intersection.getBlockZ(i) - z;
+            nearest = Math.min(nearest, dx * dx + dy * dy + dz * dz);
+        }
+        return nearest;
+    }
+}
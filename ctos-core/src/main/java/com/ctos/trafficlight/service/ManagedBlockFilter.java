@@ -0,0 +1,68 @@
+package com.ctos.trafficlight.service;
+
+/**
+ * Counting prefilter over the chunks that contain managed blocks
+ * One counter table per world id, indexed by a hash of the chunk coordinates. A zero counter means no
+ * managed block can be in that chunk, so protection handlers reject almost every event with an array
+ * read and no map lookup. A non-zero counter may be a collision and needs the exact index check.
+ * Updated under the block index lock, read lock-free from region threads.
+ */
+public class ManagedBlockFilter {
+    private static final int SLOT_BITS = 16;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+
+    // world id -> managed block count per chunk slot (null = world has no managed blocks)
+    private volatile int[][] counts = new int[0][];
+
+    /**
+     * Checks if a block might be managed
+     * @return false if it certainly is not
+     */
+    public boolean mightContain(int worldId, int x, int z) {
+        int[][] all = counts;
+        if (worldId >= all.length) {
+            return false;
+        }
+        int[] worldCounts = all[worldId];
+        return worldCounts != null && worldCounts[slot(x >> 4, z >> 4)] != 0;
+    }
+
+    /**
+     * Counts a newly indexed block
+     */
+    void add(int worldId, int x, int z) {
+        int[][] all = counts;
+        if (worldId >= all.length) {
+            int[][] grown = new int[worldId + 1][];
+            System.arraycopy(all, 0, grown, 0, all.length);
+            all = grown;
+        }
+        if (all[worldId] == null) {
+            all[worldId] = new int[1 << SLOT_BITS];
+        }
+        all[worldId][slot(x >> 4, z >> 4)]++;
+        counts = all; // Volatile write publishes new tables and counts to readers
+    }
+
+    /**
+     * Uncounts a block removed from the index
+     */
+    void remove(int worldId, int x, int z) {
+        int[][] all = counts;
+        if (worldId < all.length && all[worldId] != null) {
+            int slot = slot(x >> 4, z >> 4);
+            if (all[worldId][slot] > 0) {
+                all[worldId][slot]--;
+            }
+        }
+    }
+
+    void clear() {
+        counts = new int[0][];
+    }
+
+    private static int slot(int chunkX, int chunkZ) {
+        int h = chunkX * 0x9E3779B1 + chunkZ * 0x85EBCA77;
+        return (h ^ (h >>> SLOT_BITS)) & SLOT_MASK;
+    }
+}
@@ -0,0 +1,231 @@
+package com.ctos.trafficlight.service;
+
+import com.ctos.trafficlight.engine.ChunkBlockIndex;
+import com.ctos.util.LongObjectMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Tracks which chunks have a player within view radius
+ *
+ * Each player covers a square of chunks around the chunk they stand in. Counts are only updated
+ * when a player crosses a chunk border, and only for the chunks entering or leaving their square,
+ * so the cost does not depend on the number of intersections.
+ * Thread-safe: players move on their own region threads on Folia. Updates are serialized, lookups
+ * from the engine tick read a published copy without locking.
+ */
+public class ViewerTracker {
+
+    /**
+     * Receives a callback when a chunk gains its first viewer
+     */
+    public interface ChunkViewListener {
+        void onChunkViewed(String worldName, int chunkX, int chunkZ);
+    }
+
+    private final ChunkViewListener listener;
+    private final Map<String, LongObjectMap<Integer>> viewerCounts; // world -> chunk key -> players in range
+    private final Map<UUID, ViewerPosition> viewers;
+    private int radius;
+    // Copy of the viewed chunks, republished when a chunk gains its first or loses its last viewer
+    private volatile Map<String, LongObjectMap<Integer>> viewed;
+
+    public ViewerTracker(int radius, ChunkViewListener listener) {
+        this.radius = radius;
+        this.listener = listener;
+        this.viewerCounts = new HashMap<>();
+        this.viewers = new HashMap<>();
+        this.viewed = Collections.emptyMap();
+    }
+
+    /**
+     * Updates the chunk a player stands in
+     * Does nothing unless the player changed chunk or world. The listener is called after the
+     * tracker is unlocked, for the chunks that gained their first viewer.
+     */
+    public void updateViewer(UUID playerId, String worldName, int chunkX, int chunkZ) {
+        List<int[]> newlyViewed = null;
+
+        synchronized (this) {
+            ViewerPosition previous = viewers.get(playerId);
+            if (previous != null && previous.chunkX == chunkX && previous.chunkZ == chunkZ
+                    && previous.worldName.equals(worldName)) {
+                return;
+            }
+
+            ViewerPosition current = new ViewerPosition(worldName, chunkX, chunkZ);
+            viewers.put(playerId, current);
+            boolean changed = false;
+
+            if (previous != null) {
+                // Remove the chunks that are no longer in range
+                for (int x = previous.chunkX - radius; x <= previous.chunkX + radius; x++) {
+                    for (int z = previous.chunkZ - radius; z <= previous.chunkZ + radius; z++) {
+                        if (!current.covers(previous.worldName, x, z, radius)) {
+                            changed |= decrement(previous.worldName, x, z);
+                        }
+                    }
+                }
+            }
+
+            // Add the chunks that came into range
+            for (int x = chunkX - radius; x <= chunkX + radius; x++) {
+                for (int z = chunkZ - radius; z <= chunkZ + radius; z++) {
+                    if ((previous == null || !previous.covers(worldName, x, z, radius)) && increment(worldName, x, z)) {
+                        if (newlyViewed == null) {
+                            newlyViewed = new ArrayList<>();
+                        }
+                        newlyViewed.add(new int[]{x, z});
+                        changed = true;
+                    }
+                }
+            }
+
+            if (changed) {
+                publish(worldName);
+                if (previous != null && !previous.worldName.equals(worldName)) {
+                    publish(previous.worldName);
+                }
+            }
+        }
+
+        if (newlyViewed == null) {
+            return;
+        }
+        for (int[] chunk : newlyViewed) {
+            listener.onChunkViewed(worldName, chunk[0], chunk[1]);
+        }
+    }
+
+    /**
+     * Removes a player (quit or tracking reset)
+     */
+    public synchronized void removeViewer(UUID playerId) {
+        ViewerPosition previous = viewers.remove(playerId);
+        if (previous == null) {
+            return;
+        }
+
+        boolean changed = false;
+        for (int x = previous.chunkX - radius; x <= previous.chunkX + radius; x++) {
+            for (int z = previous.chunkZ - radius; z <= previous.chunkZ + radius; z++) {
+                changed |= decrement(previous.worldName, x, z);
+            }
+        }
+        if (changed) {
+            publish(previous.worldName);
+        }
+    }
+
+    /**
+     * Checks if a chunk has at least one player within view radius
+     * Lock-free, reads the last published copy
+     */
+    public boolean isViewed(String worldName, long chunkKey) {
+        LongObjectMap<Integer> chunks = viewed.get(worldName);
+        return chunks != null && chunks.containsKey(chunkKey);
+    }
+
+    public boolean isViewed(String worldName, int chunkX, int chunkZ) {
+        return isViewed(worldName, ChunkBlockIndex.chunkKey(chunkX, chunkZ));
+    }
+
+    /**
+     * Changes the view radius, dropping all viewers (they must be re-added)
+     */
+    public synchronized void setRadius(int radius) {
+        clear();
+        this.radius = radius;
+    }
+
+    public synchronized int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Forgets all viewers
+     */
+    public synchronized void clear() {
+        viewerCounts.clear();
+        viewers.clear();
+        viewed = Collections.emptyMap();
+    }
+
+    /**
+     * Adds a viewer to a chunk
+     * @return true if the chunk had no viewer before
+     */
+    private boolean increment(String worldName, int chunkX, int chunkZ) {
+        LongObjectMap<Integer> counts = viewerCounts.computeIfAbsent(worldName, w -> new LongObjectMap<>());
+        long key = ChunkBlockIndex.chunkKey(chunkX, chunkZ);
+        Integer count = counts.get(key);
+        counts.put(key, count == null ? 1 : count + 1);
+        return count == null;
+    }
+
+    /**
+     * Removes a viewer from a chunk
+     * @return true if the chunk lost its last viewer
+     */
+    private boolean decrement(String worldName, int chunkX, int chunkZ) {
+        LongObjectMap<Integer> counts = viewerCounts.get(worldName);
+        if (counts == null) {
+            return false;
+        }
+
+        long key = ChunkBlockIndex.chunkKey(chunkX, chunkZ);
+        Integer count = counts.get(key);
+        if (count == null) {
+            return false;
+        }
+        if (count <= 1) {
+            counts.remove(key);
+            if (counts.isEmpty()) {
+                viewerCounts.remove(worldName);
+            }
+            return true;
+        }
+        counts.put(key, count - 1);
+        return false;
+    }
+
+    /**
+     * Republishes the viewed chunks of a world after its set of viewed chunks changed
+     */
+    private void publish(String worldName) {
+        Map<String, LongObjectMap<Integer>> next = new HashMap<>(viewed);
+        LongObjectMap<Integer> counts = viewerCounts.get(worldName);
+        if (counts != null) {
+            next.put(worldName, counts.copy());
+        } else {
+            next.remove(worldName);
+        }
+        viewed = next;
+    }
+
+    /**
+     * Last known chunk of a player
+     */
+    private static final class ViewerPosition {
+        private final String worldName;
+        private final int chunkX;
+        private final int chunkZ;
+
+        private ViewerPosition(String worldName, int chunkX, int chunkZ) {
+            this.worldName = worldName;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        private boolean covers(String world, int x, int z, int radius) {
+            return worldName.equals(world)
+                    && Math.abs(x - chunkX) <= radius
+                    && Math.abs(z - chunkZ) <= radius;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.ctos.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one batch of block writes handed to a lamp renderer
+ * Disabled unless a recording uses the ctos.jfc settings profile
+ */
+@Name("com.ctos.BlockWrite")
+@Label("Block Write Batch")
+@Category({"ctOS", "Traffic Lights"})
+@Description("Batch of queued lamp writes applied by a renderer")
+@Enabled(false)
+@StackTrace(false)
+public class BlockWriteEvent extends Event {
+    @Label("Renderer")
+    public String renderer;
+
+    @Label("World")
+    public String world;
+
+    @Label("Anchor Chunk X")
+    public int chunkX;
+
+    @Label("Anchor Chunk Z")
+    public int chunkZ;
+
+    @Label("Blocks Written")
+    public int blocksWritten;
+
+    @Label("Blocks Still Queued")
+    public int blocksQueued;
+}
@@ -0,0 +1,104 @@
+package com.ctos.util;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Debug tracing into a bounded in-memory ring buffer
+ * The enabled flag is a volatile field refreshed on config reload, so a disabled trace costs one read.
+ * Messages are only built once tracing is known to be enabled: pass a Supplier, or guard with isEnabled()
+ * before concatenating. The buffer keeps the latest entries and is dumped on demand (/ctos debug dump)
+ * instead of logging every line synchronously.
+ */
+public class DebugTrace {
+    private static final int DEFAULT_CAPACITY = 2000;
+
+    private static volatile boolean enabled = false;
+
+    // Ring buffer, guarded by the class lock
+    private static String[] entries = new String[DEFAULT_CAPACITY];
+    private static int next = 0;
+    private static long recorded = 0;
+
+    /**
+     * Applies the debug settings (called on enable and on config reload)
+     * @param capacity Number of entries kept, older entries are overwritten
+     */
+    public static synchronized void configure(boolean debugEnabled, int capacity) {
+        capacity = Math.max(1, capacity);
+        if (capacity != entries.length) {
+            List<String> kept = snapshot();
+            entries = new String[capacity];
+            next = 0;
+            recorded = 0;
+            for (String entry : kept.subList(Math.max(0, kept.size() - capacity), kept.size())) {
+                append(entry);
+            }
+        }
+        enabled = debugEnabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a message built only if tracing is enabled
+     */
+    public static void trace(Supplier<String> message) {
+        if (enabled) {
+            record(message.get());
+        }
+    }
+
+    /**
+     * Records an already built message, callers guard the building with isEnabled()
+     */
+    public static void trace(String message) {
+        if (enabled) {
+            record(message);
+        }
+    }
+
+    /**
+     * Gets the buffered entries, oldest first
+     */
+    public static synchronized List<String> snapshot() {
+        int size = (int) Math.min(recorded, entries.length);
+        List<String> result = new ArrayList<>(size);
+        int start = recorded > entries.length ? next : 0;
+        for (int i = 0; i < size; i++) {
+            result.add(entries[(start + i) % entries.length]);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of entries recorded since the last clear, including overwritten ones
+     */
+    public static synchronized long getRecordedCount() {
+        return recorded;
+    }
+
+    public static synchronized void clear() {
+        Arrays.fill(entries, null);
+        next = 0;
+        recorded = 0;
+    }
+
+    private static void record(String message) {
+        String entry = LocalTime.now() + " [" + Thread.currentThread().getName() + "] " + message;
+        synchronized (DebugTrace.class) {
+            append(entry);
+        }
+    }
+
+    private static void append(String entry) {
+        entries[next] = entry;
+        next = (next + 1) % entries.length;
+        recorded++;
+    }
+}
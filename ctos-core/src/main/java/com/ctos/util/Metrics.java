@@ -0,0 +1,240 @@
+package com.ctos.util;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Counters and latency histograms of the animator, persistence and block index
+ * Recording is allocation-free (LongAdder and atomic bucket increments) so it stays on in production.
+ * Per-second rates are sampled from the global tick about once a second. Shown by /ctos stats and
+ * exported to JMX as com.ctos:type=Metrics.
+ */
+public class Metrics {
+    private static final Logger LOGGER = Logger.getLogger("ctOS");
+    private static final String OBJECT_NAME = "com.ctos:type=Metrics";
+    private static final long RATE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // Animator
+    public static final LatencyHistogram TICK = new LatencyHistogram();
+    public static final LongAdder PHASE_TRANSITIONS = new LongAdder();
+    public static final LongAdder BLOCK_WRITES = new LongAdder();
+    public static final LongAdder SKIPPED_WRITES = new LongAdder(); // Already rendered, unchanged by a delta or superseded in the queue
+
+    // Persistence
+    public static final LatencyHistogram SAVE = new LatencyHistogram();
+    public static final LatencyHistogram LOAD = new LatencyHistogram();
+
+    // Block index
+    public static final LatencyHistogram INDEX_UPDATE = new LatencyHistogram();
+    public static final LongAdder INDEX_LOOKUPS = new LongAdder();
+    public static final LongAdder INDEX_PREFILTER_REJECTS = new LongAdder();
+
+    // Rates, written by the global tick only
+    private static long lastSampleNanos;
+    private static long lastPhaseTransitions;
+    private static long lastBlockWrites;
+    private static volatile double phaseTransitionsPerSecond;
+    private static volatile double blockWritesPerSecond;
+
+    // Gauges read from the live services
+    private static volatile IntSupplier queuedWrites = () -> 0;
+    private static volatile IntSupplier managedBlocks = () -> 0;
+
+    /**
+     * Records one animator tick and refreshes the rates once a second (global tick thread only)
+     */
+    public static void recordTick(long startNanos, long endNanos) {
+        TICK.record(endNanos - startNanos);
+
+        if (lastSampleNanos == 0) {
+            lastSampleNanos = endNanos;
+            return;
+        }
+        long elapsed = endNanos - lastSampleNanos;
+        if (elapsed < RATE_INTERVAL_NANOS) {
+            return;
+        }
+
+        long transitions = PHASE_TRANSITIONS.sum();
+        long writes = BLOCK_WRITES.sum();
+        double seconds = elapsed / (double) RATE_INTERVAL_NANOS;
+        phaseTransitionsPerSecond = (transitions - lastPhaseTransitions) / seconds;
+        blockWritesPerSecond = (writes - lastBlockWrites) / seconds;
+        lastPhaseTransitions = transitions;
+        lastBlockWrites = writes;
+        lastSampleNanos = endNanos;
+    }
+
+    public static double getPhaseTransitionsPerSecond() {
+        return phaseTransitionsPerSecond;
+    }
+
+    public static double getBlockWritesPerSecond() {
+        return blockWritesPerSecond;
+    }
+
+    public static int getQueuedWrites() {
+        return queuedWrites.getAsInt();
+    }
+
+    public static int getManagedBlocks() {
+        return managedBlocks.getAsInt();
+    }
+
+    /**
+     * Binds the gauges to the live services and registers the JMX bean
+     * A bean left over from a previous enable (plugin reload) is replaced
+     */
+    public static void register(IntSupplier queuedWritesGauge, IntSupplier managedBlocksGauge) {
+        queuedWrites = queuedWritesGauge;
+        managedBlocks = managedBlocksGauge;
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            try {
+                server.registerMBean(new Bean(), name);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(name);
+                server.registerMBean(new Bean(), name);
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to register metrics MBean " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Unregisters the JMX bean and unbinds the gauges (called on disable)
+     */
+    public static void unregister() {
+        queuedWrites = () -> 0;
+        managedBlocks = () -> 0;
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to unregister metrics MBean " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * JMX view of the static metrics
+     */
+    private static final class Bean implements MetricsMXBean {
+        @Override
+        public long getTickCount() {
+            return TICK.getCount();
+        }
+
+        @Override
+        public double getTickMeanNanos() {
+            return TICK.getMeanNanos();
+        }
+
+        @Override
+        public long getTickP99Nanos() {
+            return TICK.getPercentileNanos(0.99);
+        }
+
+        @Override
+        public long getTickMaxNanos() {
+            return TICK.getMaxNanos();
+        }
+
+        @Override
+        public long getPhaseTransitions() {
+            return PHASE_TRANSITIONS.sum();
+        }
+
+        @Override
+        public double getPhaseTransitionsPerSecond() {
+            return phaseTransitionsPerSecond;
+        }
+
+        @Override
+        public long getBlockWrites() {
+            return BLOCK_WRITES.sum();
+        }
+
+        @Override
+        public double getBlockWritesPerSecond() {
+            return blockWritesPerSecond;
+        }
+
+        @Override
+        public long getSkippedWrites() {
+            return SKIPPED_WRITES.sum();
+        }
+
+        @Override
+        public int getQueuedWrites() {
+            return Metrics.getQueuedWrites();
+        }
+
+        @Override
+        public long getSaveCount() {
+            return SAVE.getCount();
+        }
+
+        @Override
+        public double getSaveMeanNanos() {
+            return SAVE.getMeanNanos();
+        }
+
+        @Override
+        public long getSaveMaxNanos() {
+            return SAVE.getMaxNanos();
+        }
+
+        @Override
+        public long getLoadCount() {
+            return LOAD.getCount();
+        }
+
+        @Override
+        public double getLoadMeanNanos() {
+            return LOAD.getMeanNanos();
+        }
+
+        @Override
+        public long getLoadMaxNanos() {
+            return LOAD.getMaxNanos();
+        }
+
+        @Override
+        public long getIndexUpdateCount() {
+            return INDEX_UPDATE.getCount();
+        }
+
+        @Override
+        public double getIndexUpdateMeanNanos() {
+            return INDEX_UPDATE.getMeanNanos();
+        }
+
+        @Override
+        public long getIndexLookups() {
+            return INDEX_LOOKUPS.sum();
+        }
+
+        @Override
+        public long getIndexPrefilterRejects() {
+            return INDEX_PREFILTER_REJECTS.sum();
+        }
+
+        @Override
+        public int getManagedBlocks() {
+            return Metrics.getManagedBlocks();
+        }
+    }
+}
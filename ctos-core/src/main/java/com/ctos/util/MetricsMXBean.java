@@ -0,0 +1,49 @@
+package com.ctos.util;
+
+/**
+ * Plugin metrics as seen by JMX clients, registered as com.ctos:type=Metrics
+ * Durations are in nanoseconds, percentiles are bucket upper bounds
+ */
+public interface MetricsMXBean {
+    long getTickCount();
+
+    double getTickMeanNanos();
+
+    long getTickP99Nanos();
+
+    long getTickMaxNanos();
+
+    long getPhaseTransitions();
+
+    double getPhaseTransitionsPerSecond();
+
+    long getBlockWrites();
+
+    double getBlockWritesPerSecond();
+
+    long getSkippedWrites();
+
+    int getQueuedWrites();
+
+    long getSaveCount();
+
+    double getSaveMeanNanos();
+
+    long getSaveMaxNanos();
+
+    long getLoadCount();
+
+    double getLoadMeanNanos();
+
+    long getLoadMaxNanos();
+
+    long getIndexUpdateCount();
+
+    double getIndexUpdateMeanNanos();
+
+    long getIndexLookups();
+
+    long getIndexPrefilterRejects();
+
+    int getManagedBlocks();
+}
@@ -0,0 +1,39 @@
+package com.ctos.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for saving or loading one intersection file
+ * Disabled unless a recording uses the ctos.jfc settings profile
+ */
+@Name("com.ctos.Persistence")
+@Label("Intersection Save/Load")
+@Category({"ctOS", "Persistence"})
+@Description("Intersection JSON file written or read")
+@Enabled(false)
+public class PersistenceEvent extends Event {
+    public static final String SAVE = "save";
+    public static final String LOAD = "load";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Intersection Id")
+    public String intersectionId;
+
+    @Label("Intersection Name")
+    public String intersectionName;
+
+    @Label("File Size")
+    @DataAmount(DataAmount.BYTES)
+    public long fileSize;
+
+    @Label("Success")
+    public boolean success;
+}
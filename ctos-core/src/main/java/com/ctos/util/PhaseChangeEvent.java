@@ -0,0 +1,48 @@
+package com.ctos.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for an intersection phase transition
+ * Committed when the new phase is rendered (duration covers queuing and the writes that fit in the
+ * budget) or, for intersections nobody can see, when the cycle advances without rendering.
+ * Disabled unless a recording uses the ctos.jfc settings profile.
+ */
+@Name("com.ctos.PhaseChange")
+@Label("Phase Change")
+@Category({"ctOS", "Traffic Lights"})
+@Description("Intersection phase transition and the block writes it caused")
+@Enabled(false)
+@StackTrace(false)
+public class PhaseChangeEvent extends Event {
+    @Label("Intersection Id")
+    public String intersectionId;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Previous Phase")
+    @Description("Phase rendered before, null if the intersection was not rendered yet")
+    public String previousPhase;
+
+    @Label("Rendered")
+    @Description("false if the intersection was out of view and only its cycle advanced")
+    public boolean rendered;
+
+    @Label("Resync")
+    @Description("Whole frame written again instead of the delta from the previous phase")
+    public boolean resync;
+
+    @Label("Blocks Queued")
+    public int blocksQueued;
+
+    @Label("Blocks Written")
+    @Description("Writes applied right away, the rest waits for write budget on later ticks")
+    public int blocksWritten;
+}
@@ -0,0 +1,57 @@
+package com.ctos.trafficlight;
+
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.model.BlockStateData;
+import com.ctos.trafficlight.model.Intersection;
+import com.ctos.trafficlight.model.LightPhase;
+import com.ctos.trafficlight.model.TimingConfiguration;
+import com.ctos.trafficlight.model.TrafficLightSide;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Small intersections for tests: a North and an East side with one lamp per light phase
+ * Lamps of a side are stacked red, orange, green at y 64-66, North at z=0 and East at z=2,
+ * all inside chunk 0,0 of world "test"
+ */
+public class TestIntersections {
+    public static final String WORLD = "test";
+
+    // Short phases so a full cycle takes a few dozen ticks
+    public static final int GREEN_TICKS = 10;
+    public static final int ORANGE_TICKS = 4;
+    public static final int ALL_RED_TICKS = 2;
+
+    public static final BlockStateData NEUTRAL = new BlockStateData("BLACK_CONCRETE", "minecraft:black_concrete", null);
+
+    /**
+     * Creates a complete two-sided intersection, offset along x by index * 4
+     */
+    public static Intersection create(int index) {
+        Intersection intersection = new Intersection(new UUID(0, index), "Test " + index);
+        intersection.setNeutralState(NEUTRAL);
+        intersection.setTiming(new TimingConfiguration(GREEN_TICKS, ORANGE_TICKS, GREEN_TICKS, ALL_RED_TICKS));
+        intersection.addSide(side(index, "North", 0));
+        intersection.addSide(side(index, "East", 2));
+        return intersection;
+    }
+
+    /**
+     * Gets the lamp of a side showing a light phase
+     * @param z 0 for the North side, 2 for the East side
+     */
+    public static BlockPosition lamp(int index, int z, LightPhase phase) {
+        return new BlockPosition(WORLD, index * 4, 64 + phase.ordinal(), z);
+    }
+
+    private static TrafficLightSide side(int index, String direction, int z) {
+        TrafficLightSide side = new TrafficLightSide(direction);
+        for (LightPhase phase : LightPhase.values()) {
+            String material = phase.name() + "_CONCRETE";
+            BlockStateData state = new BlockStateData(material, "minecraft:" + material.toLowerCase(), null);
+            side.setLightBlocks(phase, List.of(lamp(index, z, phase)), List.of(state));
+        }
+        return side;
+    }
+}
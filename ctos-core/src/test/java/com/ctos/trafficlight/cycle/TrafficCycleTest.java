@@ -0,0 +1,75 @@
+package com.ctos.trafficlight.cycle;
+
+import com.ctos.trafficlight.TestIntersections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrafficCycleTest {
+    private static final int CYCLE_TICKS = 2 * (TestIntersections.GREEN_TICKS + TestIntersections.ORANGE_TICKS
+            + TestIntersections.ALL_RED_TICKS);
+
+    private TickCycleClock clock;
+    private TrafficCycle cycle;
+
+    @BeforeEach
+    void setUp() {
+        clock = new TickCycleClock();
+        cycle = new TrafficCycle(TestIntersections.create(0), clock);
+    }
+
+    @Test
+    void staysInPhaseUntilItsDurationElapsed() {
+        clock.advance(TestIntersections.GREEN_TICKS - 1);
+        assertFalse(cycle.tick());
+        assertEquals(CyclePhase.NS_GREEN, cycle.getCurrentPhase());
+        assertEquals(1, cycle.getTicksRemainingInPhase());
+
+        clock.advance();
+        assertTrue(cycle.tick());
+        assertEquals(CyclePhase.NS_ORANGE, cycle.getCurrentPhase());
+        assertEquals(0, cycle.getTicksInCurrentPhase());
+    }
+
+    @Test
+    void lateCheckCarriesOvershootIntoNextPhase() {
+        clock.advance(TestIntersections.GREEN_TICKS + 3);
+        assertTrue(cycle.tick());
+
+        assertEquals(CyclePhase.NS_ORANGE, cycle.getCurrentPhase());
+        assertEquals(3, cycle.getTicksInCurrentPhase());
+        assertEquals(TestIntersections.ORANGE_TICKS - 3, cycle.getTicksRemainingInPhase());
+        assertEquals(TestIntersections.GREEN_TICKS + TestIntersections.ORANGE_TICKS, cycle.getPhaseEndTick());
+    }
+
+    @Test
+    void lateCheckCatchesUpOnSeveralPhases() {
+        clock.advance(TestIntersections.GREEN_TICKS + TestIntersections.ORANGE_TICKS + 1);
+        assertTrue(cycle.tick());
+
+        assertEquals(CyclePhase.NS_TO_EW_TRANSITION, cycle.getCurrentPhase());
+        assertEquals(1, cycle.getTicksInCurrentPhase());
+    }
+
+    @Test
+    void fastForwardOverWholeCyclesKeepsTheGrid() {
+        clock.advance(5L * CYCLE_TICKS + TestIntersections.GREEN_TICKS + 2);
+        assertTrue(cycle.tick());
+
+        assertEquals(CyclePhase.NS_ORANGE, cycle.getCurrentPhase());
+        assertEquals(2, cycle.getTicksInCurrentPhase());
+    }
+
+    @Test
+    void phaseLengthsDoNotDriftWithLateChecks() {
+        // Checked a tick late at every phase change, a full cycle still takes exactly CYCLE_TICKS
+        for (int i = 0; i < CyclePhase.values().length; i++) {
+            clock.advance(cycle.getTicksRemainingInPhase() + 1);
+            assertTrue(cycle.tick());
+        }
+
+        assertEquals(CyclePhase.NS_GREEN, cycle.getCurrentPhase());
+        assertEquals(CYCLE_TICKS, cycle.getPhaseEndTick() - TestIntersections.GREEN_TICKS);
+    }
+}
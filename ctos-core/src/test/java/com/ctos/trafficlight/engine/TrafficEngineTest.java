@@ -0,0 +1,178 @@
+package com.ctos.trafficlight.engine;
+
+import com.ctos.trafficlight.TestIntersections;
+import com.ctos.trafficlight.cycle.CyclePhase;
+import com.ctos.trafficlight.cycle.TickCycleClock;
+import com.ctos.trafficlight.cycle.TrafficCycle;
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.model.Intersection;
+import com.ctos.trafficlight.model.LightPhase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrafficEngineTest {
+    private static final int NORTH = 0;
+    private static final int EAST = 2;
+
+    private MemoryBlockSink sink;
+    private Intersection intersection;
+
+    @BeforeEach
+    void setUp() {
+        sink = new MemoryBlockSink();
+        intersection = TestIntersections.create(0);
+    }
+
+    @Test
+    void phasesAdvanceInCycleOrder() {
+        TrafficEngine engine = new TrafficEngine(sink, 0);
+        engine.register(intersection);
+        TrafficCycle cycle = engine.getCycle(intersection.getId());
+        assertEquals(CyclePhase.NS_GREEN, cycle.getCurrentPhase());
+
+        List<CyclePhase> phases = new ArrayList<>();
+        for (int i = 0; i < CyclePhase.values().length; i++) {
+            tickUntilPhaseChange(engine, cycle);
+            phases.add(cycle.getCurrentPhase());
+        }
+
+        assertEquals(List.of(CyclePhase.NS_ORANGE, CyclePhase.NS_TO_EW_TRANSITION, CyclePhase.EW_GREEN,
+                CyclePhase.EW_ORANGE, CyclePhase.EW_TO_NS_TRANSITION, CyclePhase.NS_GREEN), phases);
+    }
+
+    @Test
+    void phaseChangesFollowTheCycleClock() {
+        // A cycle clock running two ticks per server tick, like wall time while the server lags
+        TickCycleClock cycleClock = new TickCycleClock();
+        TrafficEngine engine = new TrafficEngine(sink, 0);
+        engine.setCycleClock(cycleClock);
+        engine.register(intersection);
+        TrafficCycle cycle = engine.getCycle(intersection.getId());
+
+        for (int i = 0; i < TestIntersections.GREEN_TICKS / 2 - 1; i++) {
+            cycleClock.advance(2);
+            engine.tick();
+        }
+        assertEquals(CyclePhase.NS_GREEN, cycle.getCurrentPhase());
+
+        cycleClock.advance(2);
+        engine.tick();
+        assertEquals(CyclePhase.NS_ORANGE, cycle.getCurrentPhase());
+
+        // A long stall is caught up in a single tick
+        cycleClock.advance(TestIntersections.ORANGE_TICKS + TestIntersections.ALL_RED_TICKS + 1);
+        engine.tick();
+        assertEquals(CyclePhase.EW_GREEN, cycle.getCurrentPhase());
+        assertTrue(sink.isLit(TestIntersections.lamp(0, EAST, LightPhase.GREEN)));
+    }
+
+    @Test
+    void lampsFollowThePhase() {
+        TrafficEngine engine = new TrafficEngine(sink, 0);
+        engine.register(intersection);
+        TrafficCycle cycle = engine.getCycle(intersection.getId());
+
+        while (cycle.getCurrentPhase() != CyclePhase.EW_GREEN) {
+            tickUntilPhaseChange(engine, cycle);
+        }
+
+        assertTrue(sink.isLit(TestIntersections.lamp(0, NORTH, LightPhase.RED)));
+        assertFalse(sink.isLit(TestIntersections.lamp(0, NORTH, LightPhase.GREEN)));
+        assertTrue(sink.isLit(TestIntersections.lamp(0, EAST, LightPhase.GREEN)));
+        assertFalse(sink.isLit(TestIntersections.lamp(0, EAST, LightPhase.RED)));
+        assertEquals(TestIntersections.NEUTRAL, sink.getWrite(TestIntersections.lamp(0, EAST, LightPhase.RED)).getState());
+    }
+
+    @Test
+    void phaseChangeFromPreviousPhaseWritesOnlyDelta() {
+        TrafficEngine engine = new TrafficEngine(sink, 0);
+        engine.register(intersection);
+        TrafficCycle cycle = engine.getCycle(intersection.getId());
+        PhaseDeltaTable table = PhaseDeltaTable.build(intersection.getFrozen(), false);
+
+        // Nothing rendered yet: the first change writes the whole frame
+        tickUntilPhaseChange(engine, cycle);
+        assertEquals(table.getFrame(CyclePhase.NS_ORANGE).size(), sink.getWriteCount());
+
+        long before = sink.getWriteCount();
+        tickUntilPhaseChange(engine, cycle);
+        int delta = table.getDelta(CyclePhase.NS_TO_EW_TRANSITION).size();
+        assertEquals(delta, sink.getWriteCount() - before);
+        assertTrue(delta < table.getFrame(CyclePhase.NS_TO_EW_TRANSITION).size());
+    }
+
+    @Test
+    void writesOverBudgetSpillToNextTick() {
+        TrafficEngine engine = new TrafficEngine(sink, 2);
+        engine.register(intersection);
+        TrafficCycle cycle = engine.getCycle(intersection.getId());
+        int frameSize = PhaseDeltaTable.build(intersection.getFrozen(), false).getFrame(CyclePhase.NS_ORANGE).size();
+
+        tickUntilPhaseChange(engine, cycle);
+        assertEquals(2, sink.getWriteCount());
+        assertEquals(frameSize - 2, engine.getQueuedWriteCount());
+
+        engine.tick();
+        assertEquals(4, sink.getWriteCount());
+        assertEquals(frameSize - 4, engine.getQueuedWriteCount());
+
+        engine.tick();
+        assertEquals(frameSize, sink.getWriteCount());
+        assertEquals(0, engine.getQueuedWriteCount());
+    }
+
+    @Test
+    void resyncChunkRendersIntersectionsOutOfView() {
+        TrafficEngine engine = new TrafficEngine(sink, 0);
+        engine.setWorldView((worldName, chunkKey) -> false);
+        engine.register(intersection);
+        TrafficCycle cycle = engine.getCycle(intersection.getId());
+
+        // Out of view: the cycle advances but nothing is written
+        tickUntilPhaseChange(engine, cycle);
+        tickUntilPhaseChange(engine, cycle);
+        assertEquals(CyclePhase.NS_TO_EW_TRANSITION, cycle.getCurrentPhase());
+        assertEquals(0, sink.getWriteCount());
+
+        // A chunk without lamps resyncs nothing
+        engine.resyncChunk(TestIntersections.WORLD, 5, 5);
+        assertEquals(0, sink.getWriteCount());
+
+        engine.resyncChunk(TestIntersections.WORLD, 0, 0);
+        int frameSize = PhaseDeltaTable.build(intersection.getFrozen(), false)
+                .getFrame(CyclePhase.NS_TO_EW_TRANSITION).size();
+        assertEquals(frameSize, sink.getWriteCount());
+        assertTrue(sink.isLit(TestIntersections.lamp(0, NORTH, LightPhase.RED)));
+        assertTrue(sink.isLit(TestIntersections.lamp(0, EAST, LightPhase.RED)));
+    }
+
+    @Test
+    void unregisterForgetsBlocks() {
+        TrafficEngine engine = new TrafficEngine(sink, 0);
+        engine.register(intersection);
+        tickUntilPhaseChange(engine, engine.getCycle(intersection.getId()));
+        BlockPosition lamp = TestIntersections.lamp(0, NORTH, LightPhase.ORANGE);
+        assertTrue(sink.isLit(lamp));
+
+        engine.unregister(intersection);
+        assertNull(sink.getWrite(lamp));
+        assertNull(engine.getCycle(intersection.getId()));
+        assertEquals(0, engine.getActiveCycleCount());
+    }
+
+    /**
+     * Ticks the engine until the cycle leaves its current phase
+     */
+    private static void tickUntilPhaseChange(TrafficEngine engine, TrafficCycle cycle) {
+        CyclePhase phase = cycle.getCurrentPhase();
+        for (int i = 0; i < 1000 && cycle.getCurrentPhase() == phase; i++) {
+            engine.tick();
+        }
+        assertNotEquals(phase, cycle.getCurrentPhase(), "Phase did not change within 1000 ticks");
+    }
+}
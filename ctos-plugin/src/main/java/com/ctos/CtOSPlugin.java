@@ -1,22 +1,28 @@
 package com.ctos;
 
 import com.ctos.commands.WandCommand;
+import com.ctos.listeners.BlockProtectionListener;
+import com.ctos.listeners.ChunkLoadListener;
+import com.ctos.listeners.PlayerProximityListener;
 import com.ctos.listeners.WandInteractionListener;
-import com.ctos.trafficlight.model.BlockStateData;
+import com.ctos.listeners.WorldListener;
 import com.ctos.trafficlight.model.Intersection;
 import com.ctos.trafficlight.service.IntersectionManager;
 import com.ctos.trafficlight.service.IntersectionPersistence;
 import com.ctos.trafficlight.service.TrafficLightAnimator;
 import com.ctos.trafficlight.state.WandState;
 import com.ctos.trafficlight.state.WandStateManager;
+import com.ctos.util.DebugTrace;
+import com.ctos.util.Metrics;
 import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
@@ -31,7 +37,10 @@ public class CtOSPlugin extends JavaPlugin {
     private WandStateManager wandStateManager;
 
     // Auto-save task
-    private BukkitRunnable autoSaveTask;
+    private ScheduledTask autoSaveTask;
+
+    // Debug flag cached from config
+    private volatile boolean debugEnabled;
 
     @Override
     public void onEnable() {
@@ -41,9 +50,12 @@ public class CtOSPlugin extends JavaPlugin {
 
         // 1. Save default configuration if it doesn't exist
         saveDefaultConfig();
+        if (!new File(getDataFolder(), "ctos.jfc").exists()) {
+            saveResource("ctos.jfc", false); // Flight Recorder settings profile for the ctOS events
+        }
 
         // 1.5 Set debug mode from config
-        BlockStateData.setDebugEnabled(getConfig().getBoolean("debug", false));
+        applyDebugSettings();
 
         // 2. Create data directory for intersections
         File dataDirectory = new File(getDataFolder(), "intersections");
@@ -77,11 +89,18 @@ public class CtOSPlugin extends JavaPlugin {
         getLogger().info("Registering event listeners...");
         WandInteractionListener listener = new WandInteractionListener(this, wandStateManager, intersectionManager, persistence);
         Bukkit.getPluginManager().registerEvents(listener, this);
+        Bukkit.getPluginManager().registerEvents(new ChunkLoadListener(animator), this);
+        Bukkit.getPluginManager().registerEvents(new WorldListener(this), this);
+        Bukkit.getPluginManager().registerEvents(new BlockProtectionListener(intersectionManager), this);
+        Bukkit.getPluginManager().registerEvents(new PlayerProximityListener(animator), this);
 
         // 8. Start the traffic light animator
         getLogger().info("Starting traffic light animator...");
         animator.start();
 
+        // 8.5 Export metrics over JMX
+        Metrics.register(animator::getQueuedWriteCount, intersectionManager::getManagedBlockCount);
+
         // 9. Start auto-save task
         startAutoSaveTask();
 
@@ -109,6 +128,7 @@ public class CtOSPlugin extends JavaPlugin {
             getLogger().info("Stopping traffic light animator...");
             animator.stop();
         }
+        Metrics.unregister();
 
         // 3. Save all intersections
         getLogger().info("Saving all intersections...");
@@ -137,15 +157,9 @@ public class CtOSPlugin extends JavaPlugin {
         try {
             List<Intersection> intersections = persistence.loadAll();
 
-            for (Intersection intersection : intersections) {
-                // Register with manager
-                intersectionManager.registerIntersection(intersection);
-
-                // Register with animator if complete
-                if (intersection.isComplete()) {
-                    animator.registerIntersection(intersection);
-                }
-            }
+            // Register with manager, indexing all blocks in one pass
+            // The animator picks up the complete ones from the manager when it starts
+            intersectionManager.registerAll(intersections);
 
             getLogger().info("Successfully loaded " + intersections.size() + " intersections");
 
@@ -180,15 +194,11 @@ public class CtOSPlugin extends JavaPlugin {
     private void startAutoSaveTask() {
         int interval = getConfig().getInt("storage.auto-save-interval", 6000);
 
-        autoSaveTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                getLogger().info("Auto-saving intersections...");
-                saveAllIntersections();
-            }
-        };
-
-        autoSaveTask.runTaskTimerAsynchronously(this, interval, interval);
+        // The async scheduler takes wall time, one tick = 50 ms
+        autoSaveTask = Bukkit.getAsyncScheduler().runAtFixedRate(this, task -> {
+            getLogger().info("Auto-saving intersections...");
+            saveAllIntersections();
+        }, interval * 50L, interval * 50L, TimeUnit.MILLISECONDS);
         getLogger().info("Auto-save task started (interval: " + interval + " ticks)");
     }
 
@@ -212,15 +222,23 @@ public class CtOSPlugin extends JavaPlugin {
 
     /**
      * Checks if debug mode is enabled in config
+     * Cached when the config is (re)loaded, hot paths call this
      */
     public boolean isDebugEnabled() {
-        return getConfig().getBoolean("debug", false);
+        return debugEnabled;
     }
 
     @Override
     public void reloadConfig() {
         super.reloadConfig();
-        // Update debug flag in BlockStateData
-        BlockStateData.setDebugEnabled(getConfig().getBoolean("debug", false));
+        applyDebugSettings();
+    }
+
+    /**
+     * Caches the debug flag and sizes the debug trace buffer from config
+     */
+    private void applyDebugSettings() {
+        debugEnabled = getConfig().getBoolean("debug", false);
+        DebugTrace.configure(debugEnabled, getConfig().getInt("debug-buffer-size", 2000));
     }
 }
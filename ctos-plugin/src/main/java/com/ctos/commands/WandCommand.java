@@ -7,6 +7,9 @@ import com.ctos.trafficlight.service.IntersectionPersistence;
 import com.ctos.trafficlight.state.SetupSession;
 import com.ctos.trafficlight.state.WandState;
 import com.ctos.trafficlight.state.WandStateManager;
+import com.ctos.util.DebugTrace;
+import com.ctos.util.LatencyHistogram;
+import com.ctos.util.Metrics;
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
@@ -21,18 +24,22 @@ import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.event.HoverEvent;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
 
-import com.ctos.trafficlight.model.BlockPosition;
 import com.ctos.trafficlight.model.TrafficLightSide;
 import com.ctos.trafficlight.model.LightPhase;
 
@@ -40,6 +47,8 @@ import com.ctos.trafficlight.model.LightPhase;
  * Handles all ctOS commands
  */
 public class WandCommand {
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final CtOSPlugin plugin;
     private final WandStateManager wandStateManager;
     private final IntersectionManager intersectionManager;
@@ -109,6 +118,26 @@ public class WandCommand {
                             return Command.SINGLE_SUCCESS;
                         })
                 )
+                .then(Commands.literal("stats")
+                        .executes(context -> {
+                            handleStats(context.getSource().getSender());
+                            return Command.SINGLE_SUCCESS;
+                        })
+                )
+                .then(Commands.literal("debug")
+                        .then(Commands.literal("dump")
+                                .executes(context -> {
+                                    handleDebugDump(context.getSource().getSender());
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                        )
+                        .then(Commands.literal("clear")
+                                .executes(context -> {
+                                    handleDebugClear(context.getSource().getSender());
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                        )
+                )
                 .executes(context -> {
                     sendHelp(context.getSource().getSender());
                     return Command.SINGLE_SUCCESS;
@@ -321,32 +350,8 @@ public class WandCommand {
      */
     private Intersection findNearestIntersection(Player player, double maxDistance) {
         Location playerLoc = player.getLocation();
-        Intersection nearest = null;
-        double nearestDistance = maxDistance;
-
-        for (Intersection intersection : intersectionManager.getAllIntersections()) {
-            Set<BlockPosition> blocks = intersection.getAllBlocks();
-
-            for (BlockPosition blockPos : blocks) {
-                // Check if same world
-                if (!blockPos.getWorldName().equals(playerLoc.getWorld().getName())) {
-                    continue;
-                }
-
-                // Calculate distance
-                double dx = blockPos.getX() - playerLoc.getX();
-                double dy = blockPos.getY() - playerLoc.getY();
-                double dz = blockPos.getZ() - playerLoc.getZ();
-                double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
-
-                if (distance < nearestDistance) {
-                    nearestDistance = distance;
-                    nearest = intersection;
-                }
-            }
-        }
-
-        return nearest;
+        return intersectionManager.findNearest(playerLoc.getWorld().getName(),
+                playerLoc.getX(), playerLoc.getY(), playerLoc.getZ(), maxDistance).orElse(null);
     }
 
     /**
@@ -379,7 +384,7 @@ public class WandCommand {
         // Display neutral state
         if (intersection.getNeutralState() != null) {
             sender.sendMessage(Component.text("Neutral block: ").color(NamedTextColor.GRAY)
-                    .append(Component.text(intersection.getNeutralState().getMaterial().toString()).color(NamedTextColor.WHITE)));
+                    .append(Component.text(intersection.getNeutralState().getMaterial()).color(NamedTextColor.WHITE)));
         } else {
             sender.sendMessage(Component.text("Neutral block: ").color(NamedTextColor.GRAY)
                     .append(Component.text("Not set").color(NamedTextColor.RED)));
@@ -539,6 +544,90 @@ public class WandCommand {
         return;
     }
 
+    /**
+     * Writes the debug trace buffer to a file in the plugin folder
+     */
+    private void handleDebugDump(CommandSender sender) {
+        if (!sender.hasPermission("ctos.admin")) {
+            sender.sendMessage(Component.text("You don't have permission to dump debug traces").color(NamedTextColor.RED));
+            return;
+        }
+
+        List<String> entries = DebugTrace.snapshot();
+        if (entries.isEmpty()) {
+            sender.sendMessage(Component.text("The debug buffer is empty" + (plugin.isDebugEnabled() ? "" : " (debug is disabled in config)"))
+                    .color(NamedTextColor.YELLOW));
+            return;
+        }
+
+        File file = new File(plugin.getDataFolder(), "debug-" + System.currentTimeMillis() + ".log");
+        // Written off the main thread, the buffer can hold thousands of lines
+        Bukkit.getAsyncScheduler().runNow(plugin, task -> {
+            try {
+                Files.write(file.toPath(), entries, StandardCharsets.UTF_8);
+                sender.sendMessage(Component.text("Wrote " + entries.size() + " debug traces to " + file.getName())
+                        .color(NamedTextColor.GREEN));
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to write debug dump " + file, e);
+                sender.sendMessage(Component.text("Failed to write debug dump, see console").color(NamedTextColor.RED));
+            }
+        });
+    }
+
+    /**
+     * Empties the debug trace buffer
+     */
+    private void handleDebugClear(CommandSender sender) {
+        if (!sender.hasPermission("ctos.admin")) {
+            sender.sendMessage(Component.text("You don't have permission to clear debug traces").color(NamedTextColor.RED));
+            return;
+        }
+
+        DebugTrace.clear();
+        sender.sendMessage(Component.text("Debug buffer cleared").color(NamedTextColor.GREEN));
+    }
+
+    /**
+     * Handles /ctos stats command
+     */
+    private void handleStats(CommandSender sender) {
+        if (!sender.hasPermission("ctos.admin")) {
+            sender.sendMessage(Component.text("You don't have permission to view stats").color(NamedTextColor.RED));
+            return;
+        }
+
+        sender.sendMessage(Component.text("=== ctOS Stats ===").color(NamedTextColor.GOLD));
+        sendStat(sender, "Animator tick", formatLatency(Metrics.TICK) + " over " + Metrics.TICK.getCount() + " ticks");
+        sendStat(sender, "Phase transitions", String.format("%.1f/s (%d total)",
+                Metrics.getPhaseTransitionsPerSecond(), Metrics.PHASE_TRANSITIONS.sum()));
+        sendStat(sender, "Block writes", String.format("%.1f/s (%d total)",
+                Metrics.getBlockWritesPerSecond(), Metrics.BLOCK_WRITES.sum()));
+        sendStat(sender, "Skipped no-op writes", String.valueOf(Metrics.SKIPPED_WRITES.sum()));
+        sendStat(sender, "Queued writes", String.valueOf(Metrics.getQueuedWrites()));
+        sendStat(sender, "Saves", formatLatency(Metrics.SAVE) + " over " + Metrics.SAVE.getCount() + " saves");
+        sendStat(sender, "Loads", formatLatency(Metrics.LOAD) + " over " + Metrics.LOAD.getCount() + " loads");
+        sendStat(sender, "Index updates", formatLatency(Metrics.INDEX_UPDATE) + " over "
+                + Metrics.INDEX_UPDATE.getCount() + " updates");
+        sendStat(sender, "Protection lookups", Metrics.INDEX_LOOKUPS.sum() + " ("
+                + Metrics.INDEX_PREFILTER_REJECTS.sum() + " rejected by prefilter), "
+                + Metrics.getManagedBlocks() + " managed blocks");
+    }
+
+    private void sendStat(CommandSender sender, String label, String value) {
+        sender.sendMessage(Component.text(label + ": ").color(NamedTextColor.YELLOW)
+                .append(Component.text(value).color(NamedTextColor.WHITE)));
+    }
+
+    /**
+     * Formats the mean, p99 and max of a histogram in milliseconds
+     */
+    private String formatLatency(LatencyHistogram histogram) {
+        return String.format("mean %.3fms, p99 <%.3fms, max %.3fms",
+                histogram.getMeanNanos() / 1_000_000.0,
+                histogram.getPercentileNanos(0.99) / 1_000_000.0,
+                histogram.getMaxNanos() / 1_000_000.0);
+    }
+
     /**
      * Sends help message
      */
@@ -558,14 +647,18 @@ public class WandCommand {
                 .append(Component.text(" - Cancel current setup").color(NamedTextColor.GRAY)));
         sender.sendMessage(Component.text("/ctos reload").color(NamedTextColor.YELLOW)
                 .append(Component.text(" - Reload configuration").color(NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/ctos stats").color(NamedTextColor.YELLOW)
+                .append(Component.text(" - Show animator, persistence and index metrics").color(NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/ctos debug <dump|clear>").color(NamedTextColor.YELLOW)
+                .append(Component.text(" - Write or clear the debug trace buffer").color(NamedTextColor.GRAY)));
     }
 
 
     private CompletableFuture<Suggestions> intersectionSuggestions(CommandContext<CommandSourceStack> ctx, SuggestionsBuilder builder) {
-        this.intersectionManager.getAllIntersections().forEach(intersection -> {
-            builder.suggest(intersection.getId().toString());
-            builder.suggest(intersection.getName());
-        });
+        // Served from the name index, only what matches the typed prefix
+        for (String suggestion : this.intersectionManager.suggestIdentifiers(builder.getRemaining(), MAX_SUGGESTIONS)) {
+            builder.suggest(suggestion);
+        }
         return builder.buildFuture();
     }
 }
@@ -0,0 +1,115 @@
+package com.ctos.listeners;
+
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.service.IntersectionManager;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+
+import java.util.List;
+
+/**
+ * Protects managed lamp blocks from players, pistons, explosions and flowing fluids
+ * These events fire constantly server-wide, so every check goes through the manager's chunk prefilter
+ * first and only blocks in chunks with lamps reach the exact index lookup
+ */
+public class BlockProtectionListener implements Listener {
+    private final IntersectionManager intersectionManager;
+    // Last world seen and its interned id, events come from the same world most of the time
+    private volatile WorldId lastWorld;
+
+    public BlockProtectionListener(IntersectionManager intersectionManager) {
+        this.intersectionManager = intersectionManager;
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        if (isManaged(event.getBlock())) {
+            event.setCancelled(true);
+            event.getPlayer().sendMessage(Component.text("[ctOS] This block is part of a traffic light")
+                    .color(NamedTextColor.RED));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        // The piston head itself can break a lamp in front of it
+        if (anyManaged(event.getBlocks()) || isManaged(event.getBlock().getRelative(event.getDirection()))) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        if (anyManaged(event.getBlocks())) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        event.blockList().removeIf(this::isManaged);
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        event.blockList().removeIf(this::isManaged);
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onBlockFromTo(BlockFromToEvent event) {
+        if (isManaged(event.getToBlock())) {
+            event.setCancelled(true);
+        }
+    }
+
+    private boolean anyManaged(List<Block> blocks) {
+        for (Block block : blocks) {
+            if (isManaged(block)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isManaged(Block block) {
+        return intersectionManager.isBlockManaged(worldId(block.getWorld()), block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Gets the interned id of a world, remembering the last one to skip the name lookup
+     */
+    private int worldId(World world) {
+        WorldId last = lastWorld;
+        if (last != null && last.world == world) {
+            return last.id;
+        }
+
+        int id = BlockPosition.worldId(world.getName());
+        lastWorld = new WorldId(world, id);
+        return id;
+    }
+
+    /**
+     * World instance with its interned id
+     */
+    private static final class WorldId {
+        private final World world;
+        private final int id;
+
+        private WorldId(World world, int id) {
+            this.world = world;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.ctos.listeners;
+
+import com.ctos.trafficlight.service.TrafficLightAnimator;
+import io.papermc.paper.event.packet.PlayerChunkLoadEvent;
+import org.bukkit.Chunk;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+
+/**
+ * Brings traffic lights up to date when the chunk they are in loads or is sent to a player
+ */
+public class ChunkLoadListener implements Listener {
+    private final TrafficLightAnimator animator;
+
+    public ChunkLoadListener(TrafficLightAnimator animator) {
+        this.animator = animator;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        animator.onChunkLoad(chunk.getWorld(), chunk.getX(), chunk.getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChunkLoad(PlayerChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        animator.onPlayerChunkLoad(event.getPlayer(), chunk.getWorld(), chunk.getX(), chunk.getZ());
+    }
+}
@@ -0,0 +1,73 @@
+package com.ctos.listeners;
+
+import com.ctos.trafficlight.service.TrafficLightAnimator;
+import org.bukkit.Location;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+/**
+ * Feeds player chunk movement to the animator's level-of-detail tracking
+ * Only chunk border crossings reach the animator, regular movement is filtered out here
+ */
+public class PlayerProximityListener implements Listener {
+    private final TrafficLightAnimator animator;
+
+    public PlayerProximityListener(TrafficLightAnimator animator) {
+        this.animator = animator;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        if (!animator.isLodEnabled() || !changedChunk(event.getFrom(), event.getTo())) {
+            return;
+        }
+        animator.updateViewer(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        if (!animator.isLodEnabled() || !changedChunk(event.getFrom(), event.getTo())) {
+            return;
+        }
+        animator.updateViewer(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        animator.updateViewer(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        animator.updateViewer(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        animator.updateViewer(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        animator.removeViewer(event.getPlayer());
+    }
+
+    /**
+     * Checks if a move crosses a chunk border or changes world
+     */
+    private static boolean changedChunk(Location from, Location to) {
+        if (to == null) {
+            return false;
+        }
+        return (from.getBlockX() >> 4) != (to.getBlockX() >> 4)
+                || (from.getBlockZ() >> 4) != (to.getBlockZ() >> 4)
+                || from.getWorld() != to.getWorld();
+    }
+}
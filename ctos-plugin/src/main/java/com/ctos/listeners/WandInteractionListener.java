@@ -11,6 +11,8 @@ import com.ctos.trafficlight.state.SetupSession;
 import com.ctos.trafficlight.state.SetupStep;
 import com.ctos.trafficlight.state.WandState;
 import com.ctos.trafficlight.state.WandStateManager;
+import com.ctos.util.BlockWriter;
+import com.ctos.util.BukkitPositions;
 import io.papermc.paper.event.player.AsyncChatEvent;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -86,7 +88,7 @@ public class WandInteractionListener implements Listener {
 
         switch (step) {
             case SELECT_NEUTRAL_BLOCK:
-                BlockStateData neutralState = BlockStateData.capture(block);
+                BlockStateData neutralState = BlockWriter.capture(BukkitPositions.fromBlock(block));
                 session.getIntersectionInProgress().setNeutralState(neutralState);
                 player.sendMessage(Component.text("[ctOS] Neutral block set to: " + block.getType().name())
                         .color(NamedTextColor.GREEN));
@@ -115,8 +117,8 @@ public class WandInteractionListener implements Listener {
             case SELECT_PEDESTRIAN_GREEN:
             case SELECT_PEDESTRIAN_RED:
                 // Add to buffer
-                BlockPosition pos = BlockPosition.fromLocation(block.getLocation());
-                BlockStateData state = BlockStateData.capture(block);
+                BlockPosition pos = BukkitPositions.fromBlock(block);
+                BlockStateData state = BlockWriter.capture(pos);
                 session.addToBuffer(pos, state);
 
                 int count = session.getBufferSize();
@@ -388,6 +390,9 @@ public class WandInteractionListener implements Listener {
             persistence.saveIntersection(intersection);
             if (!this.intersectionManager.hasIntersection(intersection.getId())) {
                 this.intersectionManager.registerIntersection(intersection);
+            } else {
+                // Refreeze the edited model, the index and the animator read the frozen form
+                this.intersectionManager.updateBlockIndex(intersection);
             }
 
             plugin.getAnimator().registerIntersection(intersection);
@@ -0,0 +1,33 @@
+package com.ctos.listeners;
+
+import com.ctos.CtOSPlugin;
+import com.ctos.util.BukkitPositions;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Keeps the World references cached for block positions valid across world loads and unloads
+ */
+public class WorldListener implements Listener {
+    private final CtOSPlugin plugin;
+
+    public WorldListener(CtOSPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        BukkitPositions.invalidateWorldCache();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        BukkitPositions.invalidateWorldCache();
+        // The world is still loaded while the event runs, drop anything resolved in the meantime too
+        Bukkit.getGlobalRegionScheduler().execute(plugin, BukkitPositions::invalidateWorldCache);
+    }
+}
@@ -0,0 +1,328 @@
+package com.ctos.trafficlight.service;
+
+import com.ctos.CtOSPlugin;
+import com.ctos.trafficlight.engine.BlockWriteQueue;
+import com.ctos.trafficlight.engine.ChunkBlockIndex;
+import com.ctos.trafficlight.engine.PhaseDeltaTable;
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.model.BlockStateData;
+import com.ctos.trafficlight.model.FrozenIntersection;
+import com.ctos.util.BlockWriter;
+import com.ctos.util.BukkitBlockStates;
+import com.ctos.util.BukkitPositions;
+import io.papermc.paper.math.Position;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.TileState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Directional;
+import org.bukkit.block.data.Rotatable;
+import org.bukkit.entity.BlockDisplay;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.ItemDisplay;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Renders lamps with display entities instead of blocks
+ *
+ * Each lamp gets a BlockDisplay (plain blocks) and/or an ItemDisplay (textured heads, which block
+ * displays cannot show), spawned when its intersection is registered from the frame of its current
+ * phase and kept in an index. A phase change only updates the display's block, item and brightness,
+ * so the light engine is never involved.
+ * The world is never modified: the real lamp block stays in place and is only hidden from clients
+ * with a client-side block change, sent again whenever a player receives the chunk. Forgetting a
+ * lamp shows the real block again, and a lost revert (crash, disable) is undone by the next chunk send.
+ * Displays are not saved with the chunk, they are spawned again when the chunk loads and resyncs.
+ */
+public class DisplayLampRenderer implements LampRenderer {
+    private static final Logger LOGGER = Logger.getLogger("ctOS");
+
+    private static final Display.Brightness LIT_BRIGHTNESS = new Display.Brightness(15, 15);
+    private static final BlockData HIDDEN_BLOCK = Material.AIR.createBlockData();
+
+    private final CtOSPlugin plugin;
+    private final RegionWriteDispatcher dispatcher;
+    // world name -> chunk key -> lamp -> its displays
+    private final Map<String, Map<Long, Map<BlockPosition, LampDisplay>>> lamps;
+
+    public DisplayLampRenderer(CtOSPlugin plugin) {
+        this.plugin = plugin;
+        this.dispatcher = new RegionWriteDispatcher(plugin);
+        this.lamps = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void write(List<BlockWriteQueue.BlockWrite> writes) {
+        dispatcher.dispatch(writes, this::applyOwnedWrite);
+    }
+
+    @Override
+    public void prepareBlocks(FrozenIntersection intersection, List<PhaseDeltaTable.Target> frame) {
+        for (PhaseDeltaTable.Target target : frame) {
+            runOnOwner(target.getPosition(), world -> prepareOwnedLamp(world, target));
+        }
+    }
+
+    @Override
+    public void forget(Collection<BlockPosition> blocks) {
+        for (BlockPosition pos : blocks) {
+            Map<BlockPosition, LampDisplay> chunkLamps = getChunkLamps(pos.getWorldName(), pos.getChunkX(), pos.getChunkZ());
+            LampDisplay lamp = chunkLamps != null ? chunkLamps.remove(pos) : null;
+            if (lamp != null) {
+                runOnOwner(pos, world -> lamp.remove(world, pos));
+            }
+        }
+    }
+
+    @Override
+    public void resendChunk(Player player, String worldName, int chunkX, int chunkZ) {
+        // The chunk the player received shows the real blocks, hide them again behind the displays
+        Map<BlockPosition, LampDisplay> chunkLamps = getChunkLamps(worldName, chunkX, chunkZ);
+        if (chunkLamps == null || chunkLamps.isEmpty()) {
+            return;
+        }
+
+        Map<Position, BlockData> changes = new HashMap<>();
+        for (BlockPosition pos : chunkLamps.keySet()) {
+            changes.put(Position.block(pos.getX(), pos.getY(), pos.getZ()), HIDDEN_BLOCK);
+        }
+        player.sendMultiBlockChange(changes);
+    }
+
+    @Override
+    public void clear() {
+        for (Map<Long, Map<BlockPosition, LampDisplay>> chunks : lamps.values()) {
+            for (Map<BlockPosition, LampDisplay> chunkLamps : chunks.values()) {
+                for (Map.Entry<BlockPosition, LampDisplay> entry : chunkLamps.entrySet()) {
+                    BlockPosition pos = entry.getKey();
+                    LampDisplay lamp = entry.getValue();
+                    runOnOwner(pos, world -> lamp.remove(world, pos));
+                }
+            }
+        }
+        lamps.clear();
+    }
+
+    /**
+     * Runs a task on the thread owning a block's chunk, immediately when already on it
+     */
+    private void runOnOwner(BlockPosition position, Consumer<World> task) {
+        World world = BukkitPositions.getWorld(position);
+        if (world == null) {
+            return;
+        }
+
+        int chunkX = position.getChunkX();
+        int chunkZ = position.getChunkZ();
+        if (Bukkit.isOwnedByCurrentRegion(world, chunkX, chunkZ)) {
+            task.accept(world);
+        } else {
+            Bukkit.getRegionScheduler().execute(plugin, world, chunkX, chunkZ, () -> task.accept(world));
+        }
+    }
+
+    /**
+     * Spawns the displays of a registered lamp showing its current phase
+     * Lamps in unloaded chunks get their displays from the resync when the chunk loads
+     */
+    private void prepareOwnedLamp(World world, PhaseDeltaTable.Target target) {
+        BlockPosition position = target.getPosition();
+        BlockStateData state = target.getState();
+        if (state == null || !world.isChunkLoaded(position.getChunkX(), position.getChunkZ())) {
+            return;
+        }
+
+        try {
+            BlockData blockData = BukkitBlockStates.getRenderBlockData(state, target.getDirection(), target.getFacingSource());
+            show(getLamp(world, position), world, position, state, blockData, target.isLit());
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to create lamp display at " + position, e);
+        }
+    }
+
+    /**
+     * Applies a write to the displays of a lamp, on the thread owning its chunk
+     * Writes in unloaded chunks are dropped, they are re-applied when the chunk loads
+     */
+    private void applyOwnedWrite(World world, BlockWriteQueue.BlockWrite write) {
+        BlockPosition position = write.getPosition();
+        BlockStateData state = write.getState();
+        if (state == null || !world.isChunkLoaded(position.getChunkX(), position.getChunkZ())) {
+            return;
+        }
+
+        try {
+            BlockData blockData = BukkitBlockStates.getRenderBlockData(state, write.getDirection(), write.getFacingSource());
+            show(getLamp(world, position), world, position, state, blockData, write.isLit());
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to update lamp display at " + position, e);
+        }
+    }
+
+    /**
+     * Gets the lamps indexed in a chunk
+     * @return The lamps, or null if the chunk never had one
+     */
+    private Map<BlockPosition, LampDisplay> getChunkLamps(String worldName, int chunkX, int chunkZ) {
+        Map<Long, Map<BlockPosition, LampDisplay>> chunks = lamps.get(worldName);
+        return chunks != null ? chunks.get(ChunkBlockIndex.chunkKey(chunkX, chunkZ)) : null;
+    }
+
+    /**
+     * Gets the displays of a lamp, hiding its real block from the chunk's viewers the first time
+     */
+    private LampDisplay getLamp(World world, BlockPosition position) {
+        Map<BlockPosition, LampDisplay> chunkLamps = lamps
+                .computeIfAbsent(position.getWorldName(), w -> new ConcurrentHashMap<>())
+                .computeIfAbsent(ChunkBlockIndex.chunkKey(position.getChunkX(), position.getChunkZ()),
+                        k -> new ConcurrentHashMap<>());
+
+        LampDisplay lamp = chunkLamps.get(position);
+        if (lamp == null) {
+            lamp = new LampDisplay();
+            chunkLamps.put(position, lamp);
+
+            Location location = new Location(world, position.getX(), position.getY(), position.getZ());
+            for (Player player : world.getPlayersSeeingChunk(position.getChunkX(), position.getChunkZ())) {
+                player.sendBlockChange(location, HIDDEN_BLOCK);
+            }
+        }
+        return lamp;
+    }
+
+    /**
+     * Shows a state on the displays of a lamp
+     */
+    private void show(LampDisplay lamp, World world, BlockPosition position, BlockStateData state,
+                      BlockData blockData, boolean lit) {
+        ItemStack headItem = BukkitBlockStates.createRenderItem(state);
+        Display.Brightness brightness = lit ? LIT_BRIGHTNESS : null;
+
+        if (headItem != null) {
+            lamp.hideBlock();
+            ItemDisplay itemDisplay = lamp.getItemDisplay(getHeadLocation(world, position, blockData));
+            itemDisplay.setItemStack(headItem);
+            itemDisplay.setBrightness(brightness);
+        } else {
+            lamp.hideItem();
+            BlockDisplay blockDisplay = lamp.getBlockDisplay(world, position);
+            blockDisplay.setBlock(blockData);
+            blockDisplay.setBrightness(brightness);
+        }
+    }
+
+    /**
+     * Gets where a head item must be shown so it sits like the head block would, facing the same way
+     */
+    private static Location getHeadLocation(World world, BlockPosition pos, BlockData blockData) {
+        Location location = new Location(world, pos.getX() + 0.5, pos.getY() + 0.25, pos.getZ() + 0.5);
+
+        if (blockData instanceof Directional) {
+            // Wall head: raised and pushed against the block it hangs on
+            BlockFace facing = ((Directional) blockData).getFacing();
+            location.add(-facing.getModX() * 0.25, 0.25, -facing.getModZ() * 0.25);
+            location.setDirection(facing.getDirection());
+        } else if (blockData instanceof Rotatable) {
+            location.setDirection(((Rotatable) blockData).getRotation().getDirection());
+        }
+        return location;
+    }
+
+    /**
+     * Removes an entity on the thread owning it
+     */
+    private void removeEntity(Entity entity) {
+        if (!entity.isValid()) {
+            return;
+        }
+        if (Bukkit.isOwnedByCurrentRegion(entity)) {
+            entity.remove();
+        } else {
+            entity.getScheduler().run(plugin, task -> entity.remove(), null);
+        }
+    }
+
+    /**
+     * Display entities of one lamp, respawned on the next write if the chunk unloaded them
+     * Only touched on the thread owning the lamp's chunk
+     */
+    private final class LampDisplay {
+        private BlockDisplay blockDisplay;
+        private ItemDisplay itemDisplay;
+
+        private BlockDisplay getBlockDisplay(World world, BlockPosition pos) {
+            if (blockDisplay == null || !blockDisplay.isValid()) {
+                blockDisplay = world.spawn(new Location(world, pos.getX(), pos.getY(), pos.getZ()), BlockDisplay.class,
+                        display -> display.setPersistent(false));
+            }
+            return blockDisplay;
+        }
+
+        private ItemDisplay getItemDisplay(Location headLocation) {
+            if (itemDisplay == null || !itemDisplay.isValid()) {
+                itemDisplay = headLocation.getWorld().spawn(headLocation, ItemDisplay.class, display -> {
+                    display.setPersistent(false);
+                    display.setItemDisplayTransform(ItemDisplay.ItemDisplayTransform.FIXED);
+                });
+            } else if (!headLocation.equals(itemDisplay.getLocation())) {
+                // Only when the head turns (neutral copying another facing), not on every phase change
+                itemDisplay.teleportAsync(headLocation);
+            }
+            return itemDisplay;
+        }
+
+        private void hideBlock() {
+            if (blockDisplay != null && blockDisplay.isValid()) {
+                blockDisplay.setBlock(HIDDEN_BLOCK);
+            }
+        }
+
+        private void hideItem() {
+            if (itemDisplay != null && itemDisplay.isValid()) {
+                itemDisplay.setItemStack(null);
+            }
+        }
+
+        /**
+         * Removes the displays and shows the real block to the chunk's viewers again
+         */
+        private void remove(World world, BlockPosition pos) {
+            if (blockDisplay != null) {
+                removeEntity(blockDisplay);
+            }
+            if (itemDisplay != null) {
+                removeEntity(itemDisplay);
+            }
+
+            Block block = BlockWriter.getLoadedBlock(pos);
+            if (block == null) {
+                return; // Nobody sees it, the next chunk send carries the real block
+            }
+
+            Location location = block.getLocation();
+            BlockState state = block.getState();
+            for (Player player : world.getPlayersSeeingChunk(pos.getChunkX(), pos.getChunkZ())) {
+                player.sendBlockChange(location, block.getBlockData());
+                if (state instanceof TileState) {
+                    player.sendBlockUpdate(location, (TileState) state);
+                }
+            }
+        }
+    }
+}
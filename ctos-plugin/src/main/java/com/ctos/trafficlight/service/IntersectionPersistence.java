@@ -1,6 +1,8 @@
 package com.ctos.trafficlight.service;
 
 import com.ctos.trafficlight.model.*;
+import com.ctos.util.Metrics;
+import com.ctos.util.PersistenceEvent;
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
 import org.bukkit.Material;
@@ -45,19 +47,28 @@ public class IntersectionPersistence {
      * Saves an intersection to a JSON file
      */
     public void saveIntersection(Intersection intersection) throws IOException {
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        long start = System.nanoTime();
         File tempFile = new File(dataDirectory, intersection.getId().toString() + ".tmp");
         File finalFile = new File(dataDirectory, intersection.getId().toString() + ".json");
 
-        try (Writer writer = new FileWriter(tempFile)) {
-            gson.toJson(intersection, writer);
-        }
+        try {
+            try (Writer writer = new FileWriter(tempFile)) {
+                gson.toJson(intersection, writer);
+            }
 
-        // Atomic rename
-        if (finalFile.exists()) {
-            finalFile.delete();
-        }
-        if (!tempFile.renameTo(finalFile)) {
-            throw new IOException("Failed to rename temp file to final file");
+            // Atomic rename
+            if (finalFile.exists()) {
+                finalFile.delete();
+            }
+            if (!tempFile.renameTo(finalFile)) {
+                throw new IOException("Failed to rename temp file to final file");
+            }
+            Metrics.SAVE.record(System.nanoTime() - start);
+            event.success = true;
+        } finally {
+            commit(event, PersistenceEvent.SAVE, intersection.getId(), intersection.getName(), finalFile);
         }
 
         LOGGER.log(Level.INFO, "Saved intersection: " + intersection.getName() + " (" + intersection.getId() + ")");
@@ -73,11 +84,21 @@ public class IntersectionPersistence {
             throw new FileNotFoundException("Intersection file not found: " + id);
         }
 
-        try (Reader reader = new FileReader(file)) {
-            Intersection intersection = gson.fromJson(reader, Intersection.class);
-            LOGGER.log(Level.INFO, "Loaded intersection: " + intersection.getName() + " (" + id + ")");
-            return intersection;
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Intersection intersection = null;
+        try {
+            try (Reader reader = new FileReader(file)) {
+                intersection = gson.fromJson(reader, Intersection.class);
+            }
+            Metrics.LOAD.record(System.nanoTime() - start);
+            event.success = true;
+        } finally {
+            commit(event, PersistenceEvent.LOAD, id, intersection != null ? intersection.getName() : null, file);
         }
+        LOGGER.log(Level.INFO, "Loaded intersection: " + intersection.getName() + " (" + id + ")");
+        return intersection;
     }
 
     /**
@@ -109,6 +130,20 @@ public class IntersectionPersistence {
         return intersections;
     }
 
+    /**
+     * Ends and commits a save or load JFR event, if a recording wants it
+     */
+    private static void commit(PersistenceEvent event, String operation, UUID id, String name, File file) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.intersectionId = id.toString();
+            event.intersectionName = name;
+            event.fileSize = file.length();
+            event.commit();
+        }
+    }
+
     /**
      * Deletes an intersection file
      */
@@ -161,12 +196,14 @@ public class IntersectionPersistence {
 
     /**
      * Type adapter for BlockStateData
+     * Head profiles in the old URL-only format are upgraded while reading, the file keeps them until the
+     * intersection is saved again
      */
     private static class BlockStateDataAdapter implements JsonSerializer<BlockStateData>, JsonDeserializer<BlockStateData> {
         @Override
         public JsonElement serialize(BlockStateData src, Type typeOfSrc, JsonSerializationContext context) {
             JsonObject obj = new JsonObject();
-            obj.addProperty("material", src.getMaterial().name());
+            obj.addProperty("material", src.getMaterial());
             obj.addProperty("blockData", src.getBlockDataString());
 
             if (src.getPlayerProfileData() != null) {
@@ -180,11 +217,14 @@ public class IntersectionPersistence {
         public BlockStateData deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
             JsonObject obj = json.getAsJsonObject();
 
-            Material material = Material.valueOf(obj.get("material").getAsString());
+            // Validated against the server's materials, the core model only keeps the name
+            String material = Material.valueOf(obj.get("material").getAsString()).name();
             String blockData = obj.get("blockData").getAsString();
             String playerProfile = obj.has("playerProfile") ? obj.get("playerProfile").getAsString() : null;
+            playerProfile = BlockStateData.migrateProfileData(playerProfile);
 
-            return new BlockStateData(material, blockData, playerProfile);
+            // Lamps sharing a state load as one canonical instance
+            return BlockStatePalette.intern(new BlockStateData(material, blockData, playerProfile));
         }
     }
 
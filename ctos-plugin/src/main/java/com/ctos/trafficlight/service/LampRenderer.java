@@ -0,0 +1,27 @@
+package com.ctos.trafficlight.service;
+
+import com.ctos.trafficlight.engine.BlockSink;
+import com.ctos.trafficlight.model.BlockStateData;
+import com.ctos.util.BukkitBlockStates;
+import org.bukkit.entity.Player;
+
+/**
+ * Backend that makes lamp writes visible to players, the engine's block sink on a server
+ * Selected with animation.render-mode: "world" places real blocks, "packets" only tells clients,
+ * "displays" updates display entities
+ */
+public interface LampRenderer extends BlockSink {
+
+    /**
+     * Pre-parses a state into BlockData so phase changes only apply cached BlockData
+     */
+    @Override
+    default void prepare(BlockStateData state) {
+        BukkitBlockStates.compileRenderCache(state);
+    }
+
+    /**
+     * Re-sends the lamps in a chunk to a player that just received it
+     */
+    void resendChunk(Player player, String worldName, int chunkX, int chunkZ);
+}
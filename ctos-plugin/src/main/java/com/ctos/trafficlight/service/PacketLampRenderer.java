@@ -0,0 +1,219 @@
+package com.ctos.trafficlight.service;
+
+import com.ctos.CtOSPlugin;
+import com.ctos.trafficlight.engine.BlockWriteQueue;
+import com.ctos.trafficlight.engine.ChunkBlockIndex;
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.model.BlockStateData;
+import com.ctos.util.BlockWriter;
+import com.ctos.util.BukkitBlockStates;
+import com.ctos.util.BukkitPositions;
+import io.papermc.paper.math.Position;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.TileState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Renders lamps with client-side block changes only, the world blocks never change
+ *
+ * Writes are batched per chunk section (16x16x16 blocks, what one multi-block change packet covers)
+ * into one multi-block change for every player that has the chunk loaded. The last state sent for each lamp is kept so it can be sent again when a player
+ * receives the chunk later (join, teleport, walking into range).
+ */
+public class PacketLampRenderer implements LampRenderer {
+    private static final Logger LOGGER = Logger.getLogger("ctOS");
+
+    private final RegionWriteDispatcher dispatcher;
+    // world name -> chunk key -> lamp -> what clients were last told it shows
+    private final Map<String, Map<Long, Map<BlockPosition, ShownLamp>>> shown;
+
+    public PacketLampRenderer(CtOSPlugin plugin) {
+        this.dispatcher = new RegionWriteDispatcher(plugin);
+        this.shown = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void write(List<BlockWriteQueue.BlockWrite> writes) {
+        // Group by world and chunk section so each viewer gets one packet per section
+        Map<World, Map<Long, Map<BlockPosition, ShownLamp>>> batches = new HashMap<>();
+        for (BlockWriteQueue.BlockWrite write : writes) {
+            ShownLamp lamp = createLamp(write);
+            if (lamp == null) {
+                continue;
+            }
+
+            BlockPosition pos = write.getPosition();
+            shown.computeIfAbsent(pos.getWorldName(), w -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(ChunkBlockIndex.chunkKey(pos.getChunkX(), pos.getChunkZ()), k -> new ConcurrentHashMap<>())
+                    .put(pos, lamp);
+
+            World world = BukkitPositions.getWorld(pos);
+            if (world == null) {
+                continue;
+            }
+            batches.computeIfAbsent(world, w -> new HashMap<>())
+                    .computeIfAbsent(sectionKey(pos.getChunkX(), pos.getY() >> 4, pos.getChunkZ()), k -> new HashMap<>())
+                    .put(pos, lamp);
+        }
+
+        for (Map.Entry<World, Map<Long, Map<BlockPosition, ShownLamp>>> worldEntry : batches.entrySet()) {
+            World world = worldEntry.getKey();
+            for (Map.Entry<Long, Map<BlockPosition, ShownLamp>> sectionEntry : worldEntry.getValue().entrySet()) {
+                long sectionKey = sectionEntry.getKey();
+                Collection<Player> viewers = world.getPlayersSeeingChunk(sectionChunkX(sectionKey), sectionChunkZ(sectionKey));
+                for (Player player : viewers) {
+                    send(player, sectionEntry.getValue());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forget(Collection<BlockPosition> blocks) {
+        List<BlockPosition> forgotten = new ArrayList<>();
+        for (BlockPosition pos : blocks) {
+            Map<Long, Map<BlockPosition, ShownLamp>> chunks = shown.get(pos.getWorldName());
+            if (chunks == null) {
+                continue;
+            }
+
+            Map<BlockPosition, ShownLamp> lamps = chunks.get(ChunkBlockIndex.chunkKey(pos.getChunkX(), pos.getChunkZ()));
+            if (lamps != null && lamps.remove(pos) != null) {
+                forgotten.add(pos);
+            }
+        }
+
+        // Show the real blocks again to clients, read on the threads owning their chunks
+        dispatcher.dispatchPositions(forgotten, this::revert);
+    }
+
+    @Override
+    public void resendChunk(Player player, String worldName, int chunkX, int chunkZ) {
+        Map<Long, Map<BlockPosition, ShownLamp>> chunks = shown.get(worldName);
+        if (chunks == null) {
+            return;
+        }
+
+        Map<BlockPosition, ShownLamp> lamps = chunks.get(ChunkBlockIndex.chunkKey(chunkX, chunkZ));
+        if (lamps == null || lamps.isEmpty()) {
+            return;
+        }
+
+        // One multi-block change per section of the chunk
+        Map<Integer, Map<BlockPosition, ShownLamp>> sections = new HashMap<>();
+        for (Map.Entry<BlockPosition, ShownLamp> entry : lamps.entrySet()) {
+            sections.computeIfAbsent(entry.getKey().getY() >> 4, y -> new HashMap<>())
+                    .put(entry.getKey(), entry.getValue());
+        }
+        for (Map<BlockPosition, ShownLamp> section : sections.values()) {
+            send(player, section);
+        }
+    }
+
+    /**
+     * Packs chunk section coordinates into a key (22 bits x, 22 bits z, 20 bits y, like the game does)
+     */
+    private static long sectionKey(int chunkX, int sectionY, int chunkZ) {
+        return ((chunkX & 0x3FFFFFL) << 42) | ((chunkZ & 0x3FFFFFL) << 20) | (sectionY & 0xFFFFFL);
+    }
+
+    private static int sectionChunkX(long sectionKey) {
+        return (int) (sectionKey >> 42);
+    }
+
+    private static int sectionChunkZ(long sectionKey) {
+        return (int) (sectionKey << 22 >> 42);
+    }
+
+    @Override
+    public void clear() {
+        shown.clear();
+    }
+
+    /**
+     * Resolves what a write shows to clients
+     * @return The lamp, or null if the write has no state (missing neutral state)
+     */
+    private ShownLamp createLamp(BlockWriteQueue.BlockWrite write) {
+        BlockStateData state = write.getState();
+        if (state == null) {
+            return null;
+        }
+
+        try {
+            BlockData blockData = BukkitBlockStates.getRenderBlockData(state, write.getDirection(), write.getFacingSource());
+            return new ShownLamp(blockData, BukkitBlockStates.createRenderTileState(state, blockData));
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to build client block change at " + write.getPosition(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Sends a batch of lamps of one chunk section to a player
+     */
+    private void send(Player player, Map<BlockPosition, ShownLamp> lamps) {
+        Map<Position, BlockData> changes = new HashMap<>();
+        List<Map.Entry<BlockPosition, ShownLamp>> tiles = new ArrayList<>();
+        for (Map.Entry<BlockPosition, ShownLamp> entry : lamps.entrySet()) {
+            BlockPosition pos = entry.getKey();
+            changes.put(Position.block(pos.getX(), pos.getY(), pos.getZ()), entry.getValue().blockData);
+            if (entry.getValue().tileState != null) {
+                tiles.add(entry);
+            }
+        }
+
+        player.sendMultiBlockChange(changes);
+
+        // Head textures live in the block entity, which block changes do not carry
+        for (Map.Entry<BlockPosition, ShownLamp> entry : tiles) {
+            player.sendBlockUpdate(BukkitPositions.toLocation(entry.getKey()), entry.getValue().tileState);
+        }
+    }
+
+    /**
+     * Sends the real world block at a position to the players that have its chunk, on the owning thread
+     * Nothing to do if the chunk is not loaded, the next chunk send carries the real block
+     */
+    private void revert(World world, BlockPosition pos) {
+        Block block = BlockWriter.getLoadedBlock(pos);
+        if (block == null) {
+            return;
+        }
+
+        Location location = block.getLocation();
+        BlockState state = block.getState();
+        for (Player player : world.getPlayersSeeingChunk(pos.getChunkX(), pos.getChunkZ())) {
+            player.sendBlockChange(location, block.getBlockData());
+            if (state instanceof TileState) {
+                player.sendBlockUpdate(location, (TileState) state);
+            }
+        }
+    }
+
+    /**
+     * Block data and optional head texture last sent for a lamp
+     */
+    private static final class ShownLamp {
+        private final BlockData blockData;
+        private final TileState tileState;
+
+        private ShownLamp(BlockData blockData, TileState tileState) {
+            this.blockData = blockData;
+            this.tileState = tileState;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ctos.trafficlight.service;
+
+import com.ctos.CtOSPlugin;
+import com.ctos.trafficlight.engine.BlockSink;
+import com.ctos.trafficlight.engine.RenderPartition;
+import com.ctos.trafficlight.engine.WriteBudget;
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.util.BukkitPositions;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+/**
+ * Render partition running on the thread owning its anchor chunk
+ *
+ * The region thread on Folia, the main thread on Paper, so intersections in different regions
+ * render in parallel on Folia. The engine hands every render and drain through execute().
+ */
+public class RegionPartition extends RenderPartition {
+    private final CtOSPlugin plugin;
+    private final int anchorChunkX;
+    private final int anchorChunkZ;
+
+    public RegionPartition(CtOSPlugin plugin, BlockSink sink, WriteBudget budget, BlockPosition anchor) {
+        super(sink, budget, anchor);
+        this.plugin = plugin;
+        this.anchorChunkX = anchor.getChunkX();
+        this.anchorChunkZ = anchor.getChunkZ();
+    }
+
+    /**
+     * Runs a task on the thread owning this partition
+     * Runs immediately when already on it (always the case on Paper's main thread)
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (isClosed()) {
+            return;
+        }
+
+        // Resolves the world without a by-name lookup
+        World world = BukkitPositions.getWorld(getAnchor());
+        if (world == null) {
+            return;
+        }
+
+        if (Bukkit.isOwnedByCurrentRegion(world, anchorChunkX, anchorChunkZ)) {
+            task.run();
+        } else {
+            Bukkit.getRegionScheduler().execute(plugin, world, anchorChunkX, anchorChunkZ, task);
+        }
+    }
+}
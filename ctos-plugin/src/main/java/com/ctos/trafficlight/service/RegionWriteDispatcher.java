@@ -0,0 +1,125 @@
+package com.ctos.trafficlight.service;
+
+import com.ctos.CtOSPlugin;
+import com.ctos.trafficlight.engine.BlockWriteQueue;
+import com.ctos.trafficlight.engine.RenderPartition;
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.util.BukkitPositions;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies a drained batch of writes on the threads owning their chunks, keeping the batch's priority order
+ *
+ * Writes in chunks owned by the current thread are applied immediately. The others (Folia only) are
+ * grouped by region cell, the same 16x16 chunk cells partitions use, and each cell gets a single task
+ * applying its writes in batch order. Handing every write its own task would let a region run them in
+ * any order, e.g. turn a lamp green before the crossing one turned red.
+ * Other per-block work that must run on the owning thread (reverting forgotten lamps) goes the same way.
+ */
+public class RegionWriteDispatcher {
+
+    /**
+     * Applies one write on the thread owning its chunk
+     */
+    public interface WriteApplier {
+        void apply(World world, BlockWriteQueue.BlockWrite write);
+    }
+
+    /**
+     * Runs a task for one block on the thread owning its chunk
+     */
+    public interface PositionApplier {
+        void apply(World world, BlockPosition position);
+    }
+
+    /**
+     * Finds the block an item applies to
+     */
+    private interface Locator<T> {
+        BlockPosition locate(T item);
+    }
+
+    /**
+     * Applies one item on the thread owning its block's chunk
+     */
+    private interface Applier<T> {
+        void apply(World world, T item);
+    }
+
+    private final CtOSPlugin plugin;
+
+    public RegionWriteDispatcher(CtOSPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Applies a batch, handing the writes owned by other regions over with one task per cell
+     */
+    public void dispatch(List<BlockWriteQueue.BlockWrite> writes, WriteApplier applier) {
+        dispatch(writes, BlockWriteQueue.BlockWrite::getPosition, applier::apply);
+    }
+
+    /**
+     * Runs a task for each block, handing the blocks owned by other regions over with one task per cell
+     */
+    public void dispatchPositions(Collection<BlockPosition> positions, PositionApplier applier) {
+        dispatch(positions, position -> position, applier::apply);
+    }
+
+    private <T> void dispatch(Collection<T> items, Locator<T> locator, Applier<T> applier) {
+        Map<String, List<T>> remoteCells = null; // Cell key -> items in batch order
+
+        for (T item : items) {
+            BlockPosition position = locator.locate(item);
+            World world = BukkitPositions.getWorld(position);
+            if (world == null) {
+                continue;
+            }
+
+            if (Bukkit.isOwnedByCurrentRegion(world, position.getChunkX(), position.getChunkZ())) {
+                applier.apply(world, item);
+                continue;
+            }
+
+            if (remoteCells == null) {
+                remoteCells = new LinkedHashMap<>();
+            }
+            remoteCells.computeIfAbsent(RenderPartition.cellKey(position.getWorldName(), position.getChunkX(),
+                    position.getChunkZ()), key -> new ArrayList<>()).add(item);
+        }
+
+        if (remoteCells == null) {
+            return;
+        }
+        for (List<T> cellItems : remoteCells.values()) {
+            BlockPosition first = locator.locate(cellItems.get(0));
+            World world = BukkitPositions.getWorld(first);
+            Bukkit.getRegionScheduler().execute(plugin, world, first.getChunkX(), first.getChunkZ(),
+                    () -> applyCell(world, cellItems, locator, applier));
+        }
+    }
+
+    /**
+     * Applies the items of one cell on the region thread owning its first chunk
+     * A region owns whole cells with Folia's default grid; with a finer grid a stray item still gets its own task
+     */
+    private <T> void applyCell(World world, List<T> cellItems, Locator<T> locator, Applier<T> applier) {
+        for (T item : cellItems) {
+            BlockPosition position = locator.locate(item);
+            int chunkX = position.getChunkX();
+            int chunkZ = position.getChunkZ();
+            if (Bukkit.isOwnedByCurrentRegion(world, chunkX, chunkZ)) {
+                applier.apply(world, item);
+            } else {
+                Bukkit.getRegionScheduler().execute(plugin, world, chunkX, chunkZ, () -> applier.apply(world, item));
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.ctos.trafficlight.service;
+
+import com.ctos.CtOSPlugin;
+import com.ctos.trafficlight.cycle.CycleClock;
+import com.ctos.trafficlight.cycle.TickCycleClock;
+import com.ctos.trafficlight.cycle.TrafficCycle;
+import com.ctos.trafficlight.cycle.WallCycleClock;
+import com.ctos.trafficlight.engine.TrafficEngine;
+import com.ctos.trafficlight.engine.WorldView;
+import com.ctos.trafficlight.model.*;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.logging.Logger;
+
+/**
+ * Handles the animation/cycling of all traffic lights
+ * Runs the server-independent TrafficEngine on the server and feeds it players and chunks
+ *
+ * The cycle model and phase scheduler run on the global region tick. Rendering is done by
+ * RegionPartitions on the thread owning the intersection's chunks, so on Folia intersections in
+ * different regions update in parallel. On Paper every scheduler runs on the main thread.
+ */
+public class TrafficLightAnimator {
+    private static final Logger LOGGER = Logger.getLogger("ctOS");
+
+    private final CtOSPlugin plugin;
+    private final IntersectionManager intersectionManager;
+    private final ViewerTracker viewerTracker;
+    private volatile TrafficEngine engine; // Recreated with the renderer on reload
+    private volatile LampRenderer renderer; // Places blocks or sends client-side block changes
+    private volatile boolean lodEnabled; // Only render intersections with a player in view
+    private ScheduledTask animationTask;
+
+    public TrafficLightAnimator(CtOSPlugin plugin, IntersectionManager intersectionManager) {
+        this.plugin = plugin;
+        this.intersectionManager = intersectionManager;
+        this.viewerTracker = new ViewerTracker(getLodViewRadius(), this::resyncChunk);
+        this.lodEnabled = plugin.getConfig().getBoolean("animation.lod.enabled", true);
+        this.renderer = createRenderer();
+        this.engine = createEngine();
+    }
+
+    /**
+     * Gets the LOD view radius in chunks from config, defaulting to the server view distance
+     */
+    private int getLodViewRadius() {
+        int radius = plugin.getConfig().getInt("animation.lod.view-radius-chunks", 0);
+        return radius > 0 ? radius : Bukkit.getViewDistance();
+    }
+
+    /**
+     * Creates the engine around the current renderer, with partitions on region threads
+     */
+    private TrafficEngine createEngine() {
+        TrafficEngine created = new TrafficEngine(renderer,
+                plugin.getConfig().getInt("animation.max-block-writes-per-tick", 1000),
+                (sink, budget, anchor) -> new RegionPartition(plugin, sink, budget, anchor));
+        created.setCycleClock(createCycleClock(created.getServerClock()));
+        created.setWorldView(createWorldView());
+        return created;
+    }
+
+    /**
+     * Creates the cycle clock selected in config ("server-ticks" by default, or "wall-time")
+     */
+    private CycleClock createCycleClock(TickCycleClock serverClock) {
+        String mode = plugin.getConfig().getString("animation.clock", "server-ticks");
+
+        if ("wall-time".equalsIgnoreCase(mode)) {
+            return new WallCycleClock();
+        }
+        if (!"server-ticks".equalsIgnoreCase(mode)) {
+            LOGGER.warning("Unknown animation.clock '" + mode + "', using server-ticks");
+        }
+        return serverClock;
+    }
+
+    /**
+     * Creates what the engine sees: every chunk without LOD, otherwise only chunks near a player
+     */
+    private WorldView createWorldView() {
+        return lodEnabled ? viewerTracker::isViewed : WorldView.ALL_VISIBLE;
+    }
+
+    /**
+     * Creates the renderer selected in config ("world" by default, "packets" or "displays")
+     */
+    private LampRenderer createRenderer() {
+        String mode = plugin.getConfig().getString("animation.render-mode", "world");
+
+        if ("packets".equalsIgnoreCase(mode)) {
+            return new PacketLampRenderer(plugin);
+        }
+        if ("displays".equalsIgnoreCase(mode)) {
+            return new DisplayLampRenderer(plugin);
+        }
+        if (!"world".equalsIgnoreCase(mode)) {
+            LOGGER.warning("Unknown animation.render-mode '" + mode + "', using world");
+        }
+        return new WorldLampRenderer(plugin);
+    }
+
+    /**
+     * Starts the animation engine
+     */
+    public void start() {
+        if (animationTask != null) {
+            LOGGER.warning("Animation task is already running!");
+            return;
+        }
+
+        // Initialize cycles for all intersections
+        engine.clear();
+        for (Intersection intersection : intersectionManager.getAllIntersections()) {
+            engine.register(intersection);
+        }
+
+        // Seed the viewer tracker with the players already online
+        viewerTracker.clear();
+        if (lodEnabled) {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                updateViewer(player, player.getLocation());
+            }
+        }
+
+        // Start the repeating task on the global region, it only does work on ticks where a phase change is due
+        TrafficEngine running = engine;
+        animationTask = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, task -> running.tick(), 1L, 1L);
+
+        LOGGER.info("Traffic light animator started (" + engine.getScheduledCount() + " cycles scheduled)");
+    }
+
+    /**
+     * Stops the animation engine
+     */
+    public void stop() {
+        if (animationTask != null) {
+            animationTask.cancel();
+            animationTask = null;
+        }
+
+        // Partitions may still have work scheduled on region threads, clearing closes them
+        engine.clear();
+        viewerTracker.clear();
+
+        LOGGER.info("Traffic light animator stopped");
+    }
+
+    /**
+     * Registers a new intersection for animation
+     */
+    public void registerIntersection(Intersection intersection) {
+        if (engine.register(intersection)) {
+            LOGGER.info("Registered intersection for animation: " + intersection.getName());
+        }
+    }
+
+    /**
+     * Unregisters an intersection from animation
+     */
+    public void unregisterIntersection(Intersection intersection) {
+        engine.unregister(intersection);
+        LOGGER.info("Unregistered intersection from animation: " + intersection.getName());
+    }
+
+    /**
+     * Called when a chunk loads (on its region thread): re-applies the current expected state of every managed block in it
+     * Cycles keep advancing while their chunks are unloaded, so the blocks may be several phases behind
+     */
+    public void onChunkLoad(World world, int chunkX, int chunkZ) {
+        // With LOD, a chunk nobody is near stays dormant until a player approaches
+        if (lodEnabled && !viewerTracker.isViewed(world.getName(), chunkX, chunkZ)) {
+            return;
+        }
+        resyncChunk(world.getName(), chunkX, chunkZ);
+    }
+
+    /**
+     * Re-queues the current expected state of the intersections with blocks in a chunk
+     */
+    private void resyncChunk(String worldName, int chunkX, int chunkZ) {
+        engine.resyncChunk(worldName, chunkX, chunkZ);
+    }
+
+    /**
+     * Called when a chunk is sent to a player: client-side lamps must be sent again on top of it
+     */
+    public void onPlayerChunkLoad(Player player, World world, int chunkX, int chunkZ) {
+        renderer.resendChunk(player, world.getName(), chunkX, chunkZ);
+    }
+
+    /**
+     * Updates the chunk a player is viewing from (LOD proximity tracking)
+     */
+    public void updateViewer(Player player, Location location) {
+        if (!lodEnabled || location == null || location.getWorld() == null) {
+            return;
+        }
+        viewerTracker.updateViewer(player.getUniqueId(), location.getWorld().getName(),
+                location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+
+    /**
+     * Stops tracking a player (LOD proximity tracking)
+     */
+    public void removeViewer(Player player) {
+        viewerTracker.removeViewer(player.getUniqueId());
+    }
+
+    public boolean isLodEnabled() {
+        return lodEnabled;
+    }
+
+    /**
+     * Gets the server tick clock driving the animator
+     */
+    public TickCycleClock getServerClock() {
+        return engine.getServerClock();
+    }
+
+    /**
+     * Gets the current cycle for an intersection
+     */
+    public TrafficCycle getCycle(Intersection intersection) {
+        return engine.getCycle(intersection.getId());
+    }
+
+    /**
+     * Checks if the animator is running
+     */
+    public boolean isRunning() {
+        return animationTask != null;
+    }
+
+    /**
+     * Gets the number of active cycles
+     */
+    public int getActiveCycleCount() {
+        return engine.getActiveCycleCount();
+    }
+
+    /**
+     * Gets the number of block writes waiting for budget on a later tick
+     */
+    public int getQueuedWriteCount() {
+        return engine.getQueuedWriteCount();
+    }
+
+    /**
+     * Reloads the animation settings from config and restarts the animation engine
+     */
+    public void reloadConfig() {
+        this.lodEnabled = plugin.getConfig().getBoolean("animation.lod.enabled", true);
+        viewerTracker.setRadius(getLodViewRadius());
+
+        boolean running = animationTask != null;
+        if (running) {
+            stop();
+        }
+        this.renderer = createRenderer();
+        this.engine = createEngine();
+        if (running) {
+            start();
+        }
+    }
+}
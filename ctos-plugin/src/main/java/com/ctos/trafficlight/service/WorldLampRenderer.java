@@ -0,0 +1,85 @@
+package com.ctos.trafficlight.service;
+
+import com.ctos.CtOSPlugin;
+import com.ctos.trafficlight.engine.BlockWriteQueue;
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.model.BlockStateData;
+import com.ctos.util.BlockWriter;
+import com.ctos.util.BukkitBlockStates;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Renders lamps by placing the real blocks in the world
+ * Every client sees them and they persist, at the cost of chunk and lighting updates on each change
+ */
+public class WorldLampRenderer implements LampRenderer {
+    private static final Logger LOGGER = Logger.getLogger("ctOS");
+
+    private final RegionWriteDispatcher dispatcher;
+    // Lamp -> pooled profile data its head block entity was last given
+    private final Map<BlockPosition, String> shownProfiles;
+
+    public WorldLampRenderer(CtOSPlugin plugin) {
+        this.dispatcher = new RegionWriteDispatcher(plugin);
+        this.shownProfiles = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void write(List<BlockWriteQueue.BlockWrite> writes) {
+        dispatcher.dispatch(writes, (world, write) -> applyOwnedWrite(write));
+    }
+
+    @Override
+    public void forget(Collection<BlockPosition> blocks) {
+        // Placed blocks stay as they are
+        for (BlockPosition pos : blocks) {
+            shownProfiles.remove(pos);
+        }
+    }
+
+    @Override
+    public void resendChunk(Player player, String worldName, int chunkX, int chunkZ) {
+        // The chunk the player received already contains the blocks
+    }
+
+    @Override
+    public void clear() {
+        shownProfiles.clear();
+    }
+
+    /**
+     * Applies a write on the owning thread
+     * Writes in unloaded chunks are dropped, they are re-applied when the chunk loads
+     */
+    private void applyOwnedWrite(BlockWriteQueue.BlockWrite write) {
+        BlockPosition position = write.getPosition();
+        BlockStateData state = write.getState();
+        if (state == null) {
+            LOGGER.warning("Cannot apply null block state at " + position);
+            return;
+        }
+
+        try {
+            BlockData blockData = BukkitBlockStates.getRenderBlockData(state, write.getDirection(), write.getFacingSource());
+            if (!BlockWriter.write(position, state, blockData, shownProfiles.get(position))) {
+                return;
+            }
+
+            if (state.getPlayerProfileData() != null) {
+                shownProfiles.put(position, state.getPlayerProfileData());
+            } else {
+                shownProfiles.remove(position);
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to apply block state at " + position, e);
+        }
+    }
+}
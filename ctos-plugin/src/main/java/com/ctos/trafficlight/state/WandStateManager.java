@@ -2,10 +2,11 @@ package com.ctos.trafficlight.state;
 
 import com.ctos.CtOSPlugin;
 import com.ctos.trafficlight.model.Intersection;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -19,7 +20,7 @@ public class WandStateManager {
 
     public WandStateManager(CtOSPlugin plugin) {
         this.plugin = plugin;
-        this.activeSessions = new HashMap<>();
+        this.activeSessions = new ConcurrentHashMap<>(); // Players interact from their own region threads on Folia
 
         // Start cleanup task to remove expired sessions
         startCleanupTask();
@@ -145,12 +146,8 @@ public class WandStateManager {
      * Starts the periodic cleanup task
      */
     private void startCleanupTask() {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                cleanupExpiredSessions();
-            }
-        }.runTaskTimer(plugin, 6000L, 6000L); // Every 5 minutes
+        Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, task -> cleanupExpiredSessions(),
+                6000L, 6000L); // Every 5 minutes
     }
 
     /**
@@ -0,0 +1,56 @@
+package com.ctos.util;
+
+import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.model.BlockStateData;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+
+/**
+ * Hot-path block access by position
+ * Goes through the position's cached World and coordinate-based world APIs, never through a
+ * by-name world lookup or a Location. Shared by the renderers and the wand.
+ */
+public class BlockWriter {
+
+    /**
+     * Writes compiled block data of a state at a position, restoring the head profile if needed
+     * @param shownProfile Profile data the block's head was last given, or null if unknown
+     * @return false if the world or chunk is not loaded and nothing was written
+     */
+    public static boolean write(BlockPosition position, BlockStateData state, BlockData blockData, String shownProfile) {
+        Block block = getLoadedBlock(position);
+        if (block == null) {
+            return false;
+        }
+
+        // Same head material and same pooled profile as last time: the block entity still shows it
+        boolean profileShown = shownProfile != null
+                && shownProfile == state.getPlayerProfileData()
+                && block.getType() == blockData.getMaterial();
+
+        BukkitBlockStates.applyRenderBlockData(state, block, blockData, profileShown);
+        return true;
+    }
+
+    /**
+     * Captures the block at a position
+     * @return The captured state, or null if the world or chunk is not loaded
+     */
+    public static BlockStateData capture(BlockPosition position) {
+        Block block = getLoadedBlock(position);
+        return block != null ? BukkitBlockStates.capture(block) : null;
+    }
+
+    /**
+     * Gets the block at a position if its chunk is loaded, without loading it
+     * @return The block, or null if the world or chunk is not loaded
+     */
+    public static Block getLoadedBlock(BlockPosition position) {
+        World world = BukkitPositions.getWorld(position);
+        if (world == null || !world.isChunkLoaded(position.getChunkX(), position.getChunkZ())) {
+            return null;
+        }
+        return world.getBlockAt(position.getX(), position.getY(), position.getZ());
+    }
+}
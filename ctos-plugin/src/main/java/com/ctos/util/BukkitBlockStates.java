@@ -0,0 +1,320 @@
+package com.ctos.util;
+
+import com.ctos.trafficlight.model.BlockStateData;
+import com.ctos.trafficlight.model.BlockStatePalette;
+import com.destroystokyo.paper.profile.PlayerProfile;
+import com.destroystokyo.paper.profile.ProfileProperty;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Skull;
+import org.bukkit.block.TileState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.SkullMeta;
+import org.bukkit.profile.PlayerTextures;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Server side of BlockStateData: capturing blocks, compiling states into BlockData and applying them
+ * The compiled BlockData and decoded head profile live in the state's render cache slot, so palette
+ * eviction drops them with the state
+ */
+public class BukkitBlockStates {
+    private static final Logger LOGGER = Logger.getLogger("ctOS");
+
+    // Name of the profile property holding the skin, as sent by the session servers
+    private static final String TEXTURES_PROPERTY = "textures";
+
+    // Horizontal facings a player head can be rotated to
+    private static final String[] HORIZONTAL_FACINGS = {"north", "south", "east", "west"};
+
+    /**
+     * Render cache of a state: parsed BlockData and head profile, built once and reused for every write
+     */
+    private static final class CompiledState {
+        private volatile BlockData blockData;
+        private final Map<String, BlockData> facingVariants = new ConcurrentHashMap<>();
+        private PlayerProfile profile; // Published by profileDecoded, null if it failed to decode
+        private volatile boolean profileDecoded;
+    }
+
+    /**
+     * Captures complete block state including NBT data
+     * This method preserves ALL metadata, especially player head textures and rotation
+     */
+    public static BlockStateData capture(Block block) {
+        Material material = block.getType();
+
+        // Capture the complete block data string (includes rotation for heads)
+        String blockDataString = block.getBlockData().getAsString();
+        String playerProfileData = null;
+
+        // Special handling for player heads to preserve texture
+        BlockState state = block.getState();
+        if (state instanceof Skull) {
+            Skull skull = (Skull) state;
+            PlayerProfile profile = skull.getPlayerProfile();
+
+            if (profile != null) {
+                playerProfileData = serializePlayerProfile(profile);
+            }
+
+            // Log the rotation for debugging
+            DebugTrace.trace(() -> "Captured player head with blockData: " + blockDataString);
+        }
+
+        return BlockStatePalette.intern(new BlockStateData(material.name(), blockDataString, playerProfileData));
+    }
+
+    /**
+     * Applies compiled block data of a state, then restores the head profile if needed
+     * A head keeps its block entity when only its block data changes, so if the block already shows
+     * this state's profile the skull snapshot and update are skipped entirely
+     * @param profileShown true if the block is already a head of this material showing this state's profile
+     */
+    public static void applyRenderBlockData(BlockStateData state, Block block, BlockData blockData, boolean profileShown) {
+        block.setBlockData(blockData, false); // false = no physics update for performance
+
+        if (profileShown || state.getPlayerProfileData() == null || !state.isPlayerHead()) {
+            return;
+        }
+
+        // If this was a player head, restore the profile while preserving rotation
+        BlockState blockState = block.getState();
+        if (blockState instanceof Skull) {
+            Skull skull = (Skull) blockState;
+            PlayerProfile profile = getRenderProfile(state);
+
+            if (profile != null) {
+                skull.setPlayerProfile(profile);
+
+                // CRITICAL: Set blockData on Skull to preserve rotation
+                // Without this, skull.update() writes a default blockData without rotation
+                skull.setBlockData(blockData);
+
+                // Update the skull state - now includes both profile AND rotation
+                skull.update(true, false);
+
+                DebugTrace.trace(() -> "Applied player head, final blockData: " + block.getBlockData().getAsString());
+            }
+        }
+    }
+
+    /**
+     * Gets the decoded head profile of a state, shared by every lamp using the state
+     * The returned instance is shared and must not be modified (skulls and item metas copy it)
+     * @return The profile, or null if this is not a player head or it failed to decode
+     */
+    public static PlayerProfile getRenderProfile(BlockStateData state) {
+        String playerProfileData = state.getPlayerProfileData();
+        if (playerProfileData == null) {
+            return null;
+        }
+
+        CompiledState compiled = getCompiledState(state);
+        if (!compiled.profileDecoded) {
+            // Racing threads may both decode, the results are equal
+            compiled.profile = deserializePlayerProfile(playerProfileData);
+            compiled.profileDecoded = true;
+        }
+        return compiled.profile;
+    }
+
+    /**
+     * Parses a state into BlockData ahead of time, including every horizontal facing variant
+     * Called when an intersection is registered so phase changes never parse strings
+     */
+    public static void compileRenderCache(BlockStateData state) {
+        getRenderBlockData(state, null);
+        if (state.isFacingAdjustable()) {
+            for (String facing : HORIZONTAL_FACINGS) {
+                getRenderBlockData(state, facing);
+            }
+        }
+    }
+
+    /**
+     * Gets the compiled BlockData of a state, optionally rotated to a facing
+     * The returned instance is shared and must not be modified
+     * @param facing Facing to apply (north/south/east/west), or null to keep the captured one
+     */
+    public static BlockData getRenderBlockData(BlockStateData state, String facing) {
+        CompiledState compiled = getCompiledState(state);
+        if (facing == null || !state.isFacingAdjustable()) {
+            BlockData blockData = compiled.blockData;
+            if (blockData == null) {
+                blockData = Bukkit.createBlockData(state.getBlockDataString());
+                compiled.blockData = blockData;
+            }
+            return blockData;
+        }
+        return compiled.facingVariants.computeIfAbsent(facing,
+                f -> Bukkit.createBlockData(BlockStateData.withFacing(state.getBlockDataString(), f)));
+    }
+
+    /**
+     * Gets the compiled BlockData a write renders, rotated by side direction or copied facing
+     * @param direction Side direction for automatic head rotation, or null
+     * @param facingSource State to copy the facing from instead, or null
+     */
+    public static BlockData getRenderBlockData(BlockStateData state, String direction, BlockStateData facingSource) {
+        if (facingSource != null) {
+            return getRenderBlockData(state, facingSource.extractFacing());
+        }
+        return getRenderBlockData(state, BlockStateData.facingForDirection(direction));
+    }
+
+    /**
+     * Gets the render cache of a state, creating it if it was never compiled or was invalidated
+     */
+    private static CompiledState getCompiledState(BlockStateData state) {
+        Object cache = state.getRenderCache();
+        if (cache instanceof CompiledState) {
+            return (CompiledState) cache;
+        }
+        // Racing threads may both create one, the loser's parse is just wasted
+        CompiledState compiled = new CompiledState();
+        state.setRenderCache(compiled);
+        return compiled;
+    }
+
+    /**
+     * Creates a detached skull state carrying a state's head texture, for client-side block updates
+     * @return The skull state, or null if this is not a textured player head
+     */
+    public static TileState createRenderTileState(BlockStateData state, BlockData blockData) {
+        if (state.getPlayerProfileData() == null) {
+            return null;
+        }
+
+        BlockState blockState = blockData.createBlockState();
+        if (!(blockState instanceof Skull)) {
+            return null;
+        }
+
+        PlayerProfile profile = getRenderProfile(state);
+        if (profile == null) {
+            return null;
+        }
+
+        Skull skull = (Skull) blockState;
+        skull.setPlayerProfile(profile);
+        return skull;
+    }
+
+    /**
+     * Creates a player head item carrying a state's head texture, for item display rendering
+     * @return The head item, or null if this is not a textured player head
+     */
+    public static ItemStack createRenderItem(BlockStateData state) {
+        PlayerProfile profile = getRenderProfile(state);
+        if (profile == null) {
+            return null;
+        }
+
+        ItemStack item = new ItemStack(Material.PLAYER_HEAD);
+        SkullMeta meta = (SkullMeta) item.getItemMeta();
+        meta.setPlayerProfile(profile);
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    /**
+     * Serializes a PlayerProfile to a string for storage
+     * Format: "uuid|name|textureUrl|textureValue|signatureValue"
+     * The textures property (value and signature) is what clients render, keeping it lets heads be
+     * rebuilt offline without asking the session servers
+     */
+    private static String serializePlayerProfile(PlayerProfile profile) {
+        try {
+            StringBuilder sb = new StringBuilder();
+
+            // UUID
+            UUID uuid = profile.getId();
+            sb.append(uuid != null ? uuid.toString() : "");
+            sb.append("|");
+
+            // Name
+            String name = profile.getName();
+            sb.append(name != null ? name : "");
+            sb.append("|");
+
+            // Textures
+            PlayerTextures textures = profile.getTextures();
+            if (textures != null) {
+                URL skinUrl = textures.getSkin();
+                sb.append(skinUrl != null ? skinUrl.toString() : "");
+            }
+            sb.append("|");
+
+            // Raw textures property (base64 value and signature contain no '|')
+            ProfileProperty texturesProperty = getTexturesProperty(profile);
+            if (texturesProperty != null) {
+                sb.append(texturesProperty.getValue());
+                sb.append("|");
+                sb.append(texturesProperty.getSignature() != null ? texturesProperty.getSignature() : "");
+            } else {
+                sb.append("|");
+            }
+
+            return sb.toString();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to serialize player profile", e);
+            return null;
+        }
+    }
+
+    /**
+     * Deserializes a PlayerProfile from a string, entirely offline
+     * The profile always gets a textures property, so the server never completes it online
+     */
+    private static PlayerProfile deserializePlayerProfile(String data) {
+        try {
+            String[] parts = data.split("\\|", -1);
+            if (parts.length < 3) {
+                return null;
+            }
+
+            // Create profile, always with an id so it is never looked up by name
+            UUID uuid = parts[0].isEmpty() ? UUID.randomUUID() : UUID.fromString(parts[0]);
+            String name = parts[1].isEmpty() ? null : parts[1];
+            PlayerProfile profile = Bukkit.createProfile(uuid, name);
+
+            String value = parts.length > 3 ? parts[3] : "";
+            String signature = parts.length > 4 && !parts[4].isEmpty() ? parts[4] : null;
+            if (value.isEmpty() && !parts[2].isEmpty()) {
+                // Old format with only the skin URL: build an unsigned textures property from it
+                value = BlockStateData.encodeTexturesValue(parts[2]);
+            }
+
+            if (!value.isEmpty()) {
+                profile.setProperty(new ProfileProperty(TEXTURES_PROPERTY, value, signature));
+            }
+
+            return profile;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to deserialize player profile", e);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the textures property of a profile, or null if it has none
+     */
+    private static ProfileProperty getTexturesProperty(PlayerProfile profile) {
+        for (ProfileProperty property : profile.getProperties()) {
+            if (TEXTURES_PROPERTY.equals(property.getName())) {
+                return property;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,69 @@
+package com.ctos.util;
+
+import com.ctos.trafficlight.model.BlockPosition;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.Arrays;
+
+/**
+ * Resolves BlockPositions against the server
+ * Worlds are cached by the position's interned world id, the cache is dropped whenever a world loads or unloads
+ */
+public class BukkitPositions {
+    // World id -> loaded World (null = not resolved yet), replaced copy-on-write
+    private static volatile World[] worlds = new World[0];
+
+    public static BlockPosition fromLocation(Location location) {
+        return new BlockPosition(
+                location.getWorld().getName(),
+                location.getBlockX(),
+                location.getBlockY(),
+                location.getBlockZ()
+        );
+    }
+
+    public static BlockPosition fromBlock(Block block) {
+        return new BlockPosition(block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Drops every cached World reference (called on world load and unload)
+     */
+    public static void invalidateWorldCache() {
+        worlds = new World[0];
+    }
+
+    /**
+     * Gets the world of a position without a by-name lookup once resolved
+     * @return The world, or null if it is not loaded
+     */
+    public static World getWorld(BlockPosition position) {
+        int worldId = position.getWorldId();
+        World[] cached = worlds;
+        if (worldId < cached.length && cached[worldId] != null) {
+            return cached[worldId];
+        }
+
+        World world = Bukkit.getWorld(position.getWorldName());
+        if (world != null) {
+            synchronized (BukkitPositions.class) {
+                World[] current = worlds;
+                World[] updated = Arrays.copyOf(current, Math.max(current.length, worldId + 1));
+                updated[worldId] = world;
+                worlds = updated;
+            }
+        }
+        return world;
+    }
+
+    public static Location toLocation(BlockPosition position) {
+        World world = getWorld(position);
+        if (world == null) {
+            throw new IllegalStateException("World " + position.getWorldName() + " is not loaded");
+        }
+        return new Location(world, position.getX(), position.getY(), position.getZ());
+    }
+}